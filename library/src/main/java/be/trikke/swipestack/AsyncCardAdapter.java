@@ -0,0 +1,60 @@
+/*
+ * Copyright (C) 2016 Frederik Schweiger
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package be.trikke.swipestack;
+
+import android.view.View;
+import android.view.ViewGroup;
+
+/**
+ * Optional contract for the adapter of a {@link SwipeStack} that splits card
+ * creation into an inflation step, which runs on a background executor, and a
+ * bind step, which runs on the main thread. While a card is being inflated its
+ * slot in the stack shows a placeholder that cannot be swiped.
+ * <p>
+ * Recycled cards are bound directly, without a round trip to the executor.
+ * {@link android.widget.Adapter#getView} is only used for items whose view type
+ * is {@link android.widget.Adapter#IGNORE_ITEM_VIEW_TYPE}.
+ *
+ * @see SwipeStack#setBackgroundExecutor(java.util.concurrent.Executor)
+ */
+public interface AsyncCardAdapter {
+	/**
+	 * Inflates an unbound card. Called on a background thread, so the
+	 * implementation must not touch views that are attached to a window.
+	 *
+	 * @param parent The SwipeStack the card will be added to.
+	 * @param viewType The item view type of the card.
+	 * @return The new card.
+	 */
+	View onCreateCard(ViewGroup parent, int viewType);
+
+	/**
+	 * Binds the data at the given position to a card. Called on the main thread.
+	 *
+	 * @param card A card created by {@link #onCreateCard(ViewGroup, int)}.
+	 * @param position The position of the item in the adapter.
+	 */
+	void onBindCard(View card, int position);
+
+	/**
+	 * Creates the view shown while a card is inflated. Called on the main thread.
+	 *
+	 * @param parent The SwipeStack the placeholder will be added to.
+	 * @return A cheap view or null for an empty placeholder.
+	 */
+	View onCreatePlaceholder(ViewGroup parent);
+}
@@ -0,0 +1,74 @@
+/*
+ * Copyright (C) 2016 Frederik Schweiger
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package be.trikke.swipestack;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.util.SparseIntArray;
+import android.view.View;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Inflates cards of an {@link AsyncCardAdapter} on an executor and hands them
+ * back to the {@link SwipeStack} on the main thread.
+ */
+final class AsyncCardInflater {
+
+	private final SwipeStack mSwipeStack;
+	private final Handler mMainHandler = new Handler(Looper.getMainLooper());
+	private final SparseIntArray mPendingCounts = new SparseIntArray();
+
+	AsyncCardInflater(SwipeStack swipeStack) {
+		mSwipeStack = swipeStack;
+	}
+
+	/**
+	 * Returns the number of cards of the given type that are being inflated.
+	 */
+	int getPendingCount(int viewType) {
+		return mPendingCounts.get(viewType);
+	}
+
+	/**
+	 * Inflates a card on the executor.
+	 *
+	 * @param placeholder The placeholder the card should replace, or null if the
+	 * card should go to the recycle pool.
+	 */
+	void inflate(Executor executor, final AsyncCardAdapter adapter, final int viewType, final View placeholder) {
+		Runnable inflation = new Runnable() {
+			@Override public void run() {
+				final View card = adapter.onCreateCard(mSwipeStack, viewType);
+				mMainHandler.post(new Runnable() {
+					@Override public void run() {
+						mPendingCounts.put(viewType, mPendingCounts.get(viewType) - 1);
+						mSwipeStack.onCardInflated(adapter, viewType, placeholder, card);
+					}
+				});
+			}
+		};
+
+		mPendingCounts.put(viewType, mPendingCounts.get(viewType) + 1);
+		try {
+			executor.execute(inflation);
+		} catch (RejectedExecutionException e) {
+			// Fall back to inflating on the main thread after the current layout pass.
+			mMainHandler.post(inflation);
+		}
+	}
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright (C) 2016 Frederik Schweiger
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package be.trikke.swipestack;
+
+import android.graphics.Bitmap;
+import android.graphics.Color;
+import java.util.ArrayList;
+
+/**
+ * Bitmaps the background cards are rendered into. Released bitmaps are reused
+ * for snapshots of the same size, and the bitmaps in use and in the pool never
+ * exceed the byte budget together.
+ */
+final class CardSnapshotPool {
+
+	private final ArrayList<Bitmap> mFreeBitmaps = new ArrayList<>();
+	private int mMaxBytes;
+	private int mAllocatedBytes;
+
+	CardSnapshotPool(int maxBytes) {
+		mMaxBytes = maxBytes;
+	}
+
+	/**
+	 * @return A cleared bitmap of the given size or null if it does not fit the budget.
+	 */
+	Bitmap obtain(int width, int height) {
+		for (int x = mFreeBitmaps.size() - 1; x >= 0; x--) {
+			Bitmap bitmap = mFreeBitmaps.get(x);
+			if (bitmap.getWidth() == width && bitmap.getHeight() == height) {
+				mFreeBitmaps.remove(x);
+				bitmap.eraseColor(Color.TRANSPARENT);
+				return bitmap;
+			}
+		}
+
+		int byteCount = width * height * 4;
+		trim(mMaxBytes - byteCount);
+		if (mAllocatedBytes + byteCount > mMaxBytes) return null;
+
+		mAllocatedBytes += byteCount;
+		return Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+	}
+
+	void release(Bitmap bitmap) {
+		mFreeBitmaps.add(bitmap);
+		trim(mMaxBytes);
+	}
+
+	void setMaxBytes(int maxBytes) {
+		mMaxBytes = maxBytes;
+		trim(maxBytes);
+	}
+
+	int getAllocatedBytes() {
+		return mAllocatedBytes;
+	}
+
+	/**
+	 * Drops pooled bitmaps until the allocated bytes fit the given size or no
+	 * pooled bitmaps are left. Bitmaps in use are not affected.
+	 */
+	void trim(int maxBytes) {
+		while (mAllocatedBytes > maxBytes && !mFreeBitmaps.isEmpty()) {
+			Bitmap bitmap = mFreeBitmaps.remove(0);
+			mAllocatedBytes -= bitmap.getByteCount();
+			bitmap.recycle();
+		}
+	}
+}
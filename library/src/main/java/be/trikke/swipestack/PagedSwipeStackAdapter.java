@@ -0,0 +1,193 @@
+/*
+ * Copyright (C) 2016 Frederik Schweiger
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package be.trikke.swipestack;
+
+import android.support.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Collection;
+
+/**
+ * Adapter for data that is loaded page by page. It asks for the next page
+ * as soon as the number of items left beyond the current position of the
+ * {@link SwipeStack} drops below the load threshold, and can drop items that
+ * have already been swiped so only a window of the data is kept in memory.
+ * <p>
+ * Evicted items are removed from the start of the adapter, so positions reported
+ * by the SwipeStack are relative to the items that are currently kept.
+ *
+ * @param <T> The type of the items.
+ */
+public abstract class PagedSwipeStackAdapter<T> extends SwipeStackAdapter {
+
+	public static final int DEFAULT_LOAD_THRESHOLD = 5;
+	public static final int RETAIN_ALL_SWIPED_ITEMS = -1;
+
+	private final ArrayList<T> mItems = new ArrayList<>();
+	private OnLoadMoreListener mLoadMoreListener;
+	private int mLoadThreshold = DEFAULT_LOAD_THRESHOLD;
+	private int mMaxSwipedItems = RETAIN_ALL_SWIPED_ITEMS;
+	private int mCurrentPosition;
+	private int mEvictedCount;
+	private boolean mLoading;
+	private boolean mHasMore = true;
+
+	@Override public int getCount() {
+		return mItems.size();
+	}
+
+	@Override public T getItem(int position) {
+		return mItems.get(position);
+	}
+
+	/**
+	 * Appends a loaded page to the end of the data. Cards that are already on
+	 * the stack are not touched.
+	 *
+	 * @param page The items of the page.
+	 * @param hasMore Whether more pages can be loaded after this one.
+	 */
+	public void appendPage(Collection<? extends T> page, boolean hasMore) {
+		int positionStart = mItems.size();
+		mItems.addAll(page);
+		mLoading = false;
+		mHasMore = hasMore;
+		if (!page.isEmpty()) notifyItemRangeInserted(positionStart, page.size());
+		requestMoreIfNeeded();
+	}
+
+	/**
+	 * Notifies that loading the requested page failed. The next page is
+	 * requested again once the current position changes.
+	 */
+	public void onLoadFailed() {
+		mLoading = false;
+	}
+
+	/**
+	 * Removes all items and allows loading from the first page again.
+	 */
+	public void clear() {
+		int itemCount = mItems.size();
+		mItems.clear();
+		mCurrentPosition = 0;
+		mEvictedCount = 0;
+		mLoading = false;
+		mHasMore = true;
+		if (itemCount > 0) notifyItemRangeRemoved(0, itemCount);
+		requestMoreIfNeeded();
+	}
+
+	/**
+	 * Returns whether a page has been requested and not been delivered yet.
+	 *
+	 * @return true while a page is loading.
+	 */
+	public boolean isLoading() {
+		return mLoading;
+	}
+
+	/**
+	 * Returns whether more pages can be loaded.
+	 *
+	 * @return false once the last page has been appended.
+	 */
+	public boolean hasMore() {
+		return mHasMore;
+	}
+
+	/**
+	 * Returns the number of items removed from the start of the data so far,
+	 * which is the offset between a position and the index of its item in
+	 * the whole data set.
+	 *
+	 * @return The number of evicted items.
+	 */
+	public int getEvictedCount() {
+		return mEvictedCount;
+	}
+
+	/**
+	 * Sets the number of items that have to be left beyond the current position
+	 * before the next page is requested.
+	 *
+	 * @param threshold The load threshold.
+	 */
+	public void setLoadThreshold(int threshold) {
+		mLoadThreshold = threshold;
+		requestMoreIfNeeded();
+	}
+
+	/**
+	 * Sets the number of swiped items that are kept before the current
+	 * position. Older items are removed from the adapter.
+	 *
+	 * @param max The number of swiped items to keep or {@link #RETAIN_ALL_SWIPED_ITEMS}.
+	 */
+	public void setMaxSwipedItems(int max) {
+		mMaxSwipedItems = max;
+		evictSwipedItems();
+	}
+
+	/**
+	 * Register a callback to be invoked when the next page should be loaded.
+	 *
+	 * @param listener The callback that will run
+	 */
+	public void setOnLoadMoreListener(@Nullable OnLoadMoreListener listener) {
+		mLoadMoreListener = listener;
+		requestMoreIfNeeded();
+	}
+
+	@Override void onCurrentPositionChanged(int position) {
+		mCurrentPosition = position;
+		evictSwipedItems();
+		requestMoreIfNeeded();
+	}
+
+	private void evictSwipedItems() {
+		if (mMaxSwipedItems < 0 || mCurrentPosition <= mMaxSwipedItems) return;
+
+		int itemCount = mCurrentPosition - mMaxSwipedItems;
+		mItems.subList(0, itemCount).clear();
+		mCurrentPosition -= itemCount;
+		mEvictedCount += itemCount;
+		notifyItemRangeRemoved(0, itemCount);
+	}
+
+	private void requestMoreIfNeeded() {
+		if (mLoading || !mHasMore || mLoadMoreListener == null) return;
+		if (mItems.size() - mCurrentPosition >= mLoadThreshold) return;
+
+		mLoading = true;
+		mLoadMoreListener.onLoadMore(mEvictedCount + mItems.size());
+	}
+
+	/**
+	 * Interface definition for a callback to be invoked when the next page
+	 * of a {@link PagedSwipeStackAdapter} should be loaded.
+	 */
+	public interface OnLoadMoreListener {
+		/**
+		 * Called when the number of items left drops below the load threshold.
+		 * Deliver the page with {@link PagedSwipeStackAdapter#appendPage} or report a
+		 * failure with {@link PagedSwipeStackAdapter#onLoadFailed()}, both on the main thread.
+		 *
+		 * @param totalItemCount The number of items loaded so far, including evicted ones.
+		 */
+		void onLoadMore(int totalItemCount);
+	}
+}
@@ -0,0 +1,55 @@
+/*
+ * Copyright (C) 2016 Frederik Schweiger
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package be.trikke.swipestack;
+
+/**
+ * Picks the quality tier of a {@link SwipeStack} from the frame timing of its
+ * swipe gestures. The tier is lowered after a few gestures in a row missed the
+ * frame budget, and raised again after a longer run of smooth gestures.
+ */
+final class QualityTierTracker {
+
+	private static final int MISSED_GESTURES_TO_LOWER = 2;
+	private static final int SMOOTH_GESTURES_TO_RAISE = 8;
+	// A gesture misses the budget once more than this share of its frames was late.
+	private static final float MAX_LATE_FRAME_RATIO = 0.2f;
+
+	private int mMissedGestureCount;
+	private int mSmoothGestureCount;
+
+	/**
+	 * @return The tier to use after the given gesture.
+	 */
+	int onSwipeMetrics(SwipeMetrics metrics, int tier) {
+		if (metrics.getFrameCount() == 0) return tier;
+
+		if (metrics.getLateFrameCount() > metrics.getFrameCount() * MAX_LATE_FRAME_RATIO) {
+			mSmoothGestureCount = 0;
+			if (++mMissedGestureCount >= MISSED_GESTURES_TO_LOWER && tier < SwipeStack.QUALITY_TIER_REDUCED_STACK) {
+				mMissedGestureCount = 0;
+				return tier + 1;
+			}
+		} else if (metrics.getLateFrameCount() == 0) {
+			mMissedGestureCount = 0;
+			if (++mSmoothGestureCount >= SMOOTH_GESTURES_TO_RAISE && tier > SwipeStack.QUALITY_TIER_FULL) {
+				mSmoothGestureCount = 0;
+				return tier - 1;
+			}
+		}
+		return tier;
+	}
+}
@@ -0,0 +1,195 @@
+/*
+ * Copyright (C) 2016 Frederik Schweiger
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package be.trikke.swipestack;
+
+import android.util.SparseArray;
+import android.util.SparseIntArray;
+import android.view.View;
+import java.util.ArrayList;
+
+/**
+ * Keeps dismissed cards around so they can be handed back to the adapter as
+ * the {@code convertView} of {@link android.widget.Adapter#getView}. Cards are
+ * pooled per item view type, and every type holds a bounded number of views.
+ */
+public class RecycledCardPool {
+
+	public static final int DEFAULT_MAX_RECYCLED_VIEWS = 2;
+
+	private final SparseArray<ArrayList<View>> mScrap = new SparseArray<>();
+	private final SparseIntArray mMaxScrap = new SparseIntArray();
+	private int mDefaultMaxScrap = DEFAULT_MAX_RECYCLED_VIEWS;
+
+	private int mHitCount;
+	private int mMissCount;
+	private int mDiscardCount;
+
+	/**
+	 * Takes a recycled card of the given view type out of the pool.
+	 *
+	 * @param viewType The item view type as reported by the adapter.
+	 * @return A detached card or null if none is available.
+	 */
+	public View getRecycledView(int viewType) {
+		ArrayList<View> scrap = mScrap.get(viewType);
+		if (scrap == null || scrap.isEmpty()) {
+			mMissCount++;
+			return null;
+		}
+		mHitCount++;
+		return scrap.remove(scrap.size() - 1);
+	}
+
+	/**
+	 * Hands a detached card to the pool.
+	 *
+	 * @param viewType The item view type the card was bound with.
+	 * @param view The card, which must not have a parent.
+	 * @return true if the card was kept, false if the pool for this type is full.
+	 */
+	public boolean putRecycledView(int viewType, View view) {
+		ArrayList<View> scrap = getScrap(viewType);
+		if (scrap.size() >= getMaxRecycledViews(viewType) || scrap.contains(view)) {
+			mDiscardCount++;
+			return false;
+		}
+		scrap.add(view);
+		return true;
+	}
+
+	/**
+	 * Sets the maximum number of cards kept for one view type. Cards exceeding
+	 * the new capacity are dropped right away.
+	 *
+	 * @param viewType The item view type.
+	 * @param max The maximum number of pooled cards of that type.
+	 */
+	public void setMaxRecycledViews(int viewType, int max) {
+		mMaxScrap.put(viewType, max);
+		trimScrap(viewType, max);
+	}
+
+	/**
+	 * Returns the maximum number of cards kept for one view type.
+	 *
+	 * @param viewType The item view type.
+	 * @return The capacity for that type.
+	 */
+	public int getMaxRecycledViews(int viewType) {
+		return mMaxScrap.get(viewType, mDefaultMaxScrap);
+	}
+
+	/**
+	 * Sets the capacity used for view types without an explicit capacity.
+	 *
+	 * @param max The maximum number of pooled cards per view type.
+	 */
+	public void setDefaultMaxRecycledViews(int max) {
+		mDefaultMaxScrap = max;
+		for (int x = 0; x < mScrap.size(); x++) {
+			int viewType = mScrap.keyAt(x);
+			if (mMaxScrap.indexOfKey(viewType) < 0) {
+				trimScrap(viewType, max);
+			}
+		}
+	}
+
+	/**
+	 * Returns the number of cards currently pooled for one view type.
+	 *
+	 * @param viewType The item view type.
+	 * @return The number of pooled cards.
+	 */
+	public int getRecycledViewCount(int viewType) {
+		ArrayList<View> scrap = mScrap.get(viewType);
+		return scrap == null ? 0 : scrap.size();
+	}
+
+	/**
+	 * Returns the number of cards currently pooled for all view types.
+	 *
+	 * @return The number of pooled cards.
+	 */
+	public int getTotalRecycledViewCount() {
+		int count = 0;
+		for (int x = 0; x < mScrap.size(); x++) {
+			count += mScrap.valueAt(x).size();
+		}
+		return count;
+	}
+
+	/**
+	 * Drops all pooled cards.
+	 */
+	public void clear() {
+		mScrap.clear();
+	}
+
+	/**
+	 * Returns how many times a pooled card could be handed out.
+	 *
+	 * @return The number of pool hits.
+	 */
+	public int getHitCount() {
+		return mHitCount;
+	}
+
+	/**
+	 * Returns how many times no pooled card was available and the adapter had
+	 * to create a new one.
+	 *
+	 * @return The number of pool misses.
+	 */
+	public int getMissCount() {
+		return mMissCount;
+	}
+
+	/**
+	 * Returns how many cards were dropped because the pool was full.
+	 *
+	 * @return The number of discarded cards.
+	 */
+	public int getDiscardCount() {
+		return mDiscardCount;
+	}
+
+	/**
+	 * Resets the hit, miss and discard counters.
+	 */
+	public void resetCounters() {
+		mHitCount = 0;
+		mMissCount = 0;
+		mDiscardCount = 0;
+	}
+
+	private void trimScrap(int viewType, int max) {
+		ArrayList<View> scrap = mScrap.get(viewType);
+		while (scrap != null && scrap.size() > max) {
+			scrap.remove(scrap.size() - 1);
+			mDiscardCount++;
+		}
+	}
+
+	private ArrayList<View> getScrap(int viewType) {
+		ArrayList<View> scrap = mScrap.get(viewType);
+		if (scrap == null) {
+			scrap = new ArrayList<>();
+			mScrap.put(viewType, scrap);
+		}
+		return scrap;
+	}
+}
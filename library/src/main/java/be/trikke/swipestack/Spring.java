@@ -0,0 +1,77 @@
+/*
+ * Copyright (C) 2016 Frederik Schweiger
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package be.trikke.swipestack;
+
+/**
+ * A damped spring that moves a position from 0 towards a target distance.
+ * It is advanced in small fixed steps, so its motion doesn't depend on the
+ * frame rate.
+ */
+final class Spring {
+
+	static final float STEP_SECONDS = 0.004f;
+	private static final float MIN_DISTANCE = 1f;
+	private static final float REST_DISPLACEMENT = 0.5f;
+	private static final float REST_VELOCITY = 10f;
+
+	private float mStiffness = SwipeStack.DEFAULT_SPRING_STIFFNESS;
+	private float mDampingRatio = SwipeStack.DEFAULT_SPRING_DAMPING;
+	// Distance, position and velocity along the path of the animation, in pixels.
+	private float mDistance;
+	private float mPosition;
+	private float mVelocity;
+
+	void setParameters(float stiffness, float dampingRatio) {
+		mStiffness = stiffness;
+		mDampingRatio = dampingRatio;
+	}
+
+	void start(float distance, float velocity) {
+		mDistance = Math.max(distance, MIN_DISTANCE);
+		mPosition = 0;
+		mVelocity = velocity;
+	}
+
+	/**
+	 * Advances the spring by the given time in steps of at most {@link #STEP_SECONDS}.
+	 *
+	 * @return true once the spring came to rest at its target.
+	 */
+	boolean advance(float seconds) {
+		float damping = 2 * mDampingRatio * (float) Math.sqrt(mStiffness);
+		while (seconds > 0) {
+			float step = Math.min(seconds, STEP_SECONDS);
+			float acceleration = -mStiffness * (mPosition - mDistance) - damping * mVelocity;
+			mVelocity += acceleration * step;
+			mPosition += mVelocity * step;
+			seconds -= step;
+		}
+		return Math.abs(mDistance - mPosition) < REST_DISPLACEMENT && Math.abs(mVelocity) < REST_VELOCITY;
+	}
+
+	float getDistance() {
+		return mDistance;
+	}
+
+	float getPosition() {
+		return mPosition;
+	}
+
+	float getVelocity() {
+		return mVelocity;
+	}
+}
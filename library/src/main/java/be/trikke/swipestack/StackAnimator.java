@@ -0,0 +1,375 @@
+/*
+ * Copyright (C) 2016 Frederik Schweiger
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package be.trikke.swipestack;
+
+import android.animation.TimeInterpolator;
+import android.view.Choreographer;
+import android.view.View;
+import java.util.ArrayList;
+
+/**
+ * Drives the top card and the cards underneath it from a single progress value
+ * that is advanced once per vsync. Starting a new animation retargets the
+ * engine instead of spawning additional animators.
+ * <p>
+ * The callback of an animation is invoked exactly once when it completes. It is
+ * released before it runs, so it may start the next animation, and it is
+ * dropped if the animation is cancelled or replaced.
+ * <p>
+ * A leaving top card can be detached into a flight, which finishes its exit on
+ * its own while the next animation drives the stack.
+ * <p>
+ * In spring mode the progress follows a damped spring over the distance the
+ * top card travels instead of a fixed duration. Retargeting a running spring
+ * keeps the velocity of the card.
+ */
+final class StackAnimator implements Choreographer.FrameCallback {
+
+	private static final long MAX_SPRING_FRAME_NANOS = 100000000L;
+	private static final long MIN_FLIGHT_NANOS = 16000000L;
+	private static final long MAX_FLIGHT_NANOS = 300000000L;
+
+	interface Callback {
+		void onAnimationEnd();
+	}
+
+	private final SwipeStack mSwipeStack;
+	private final Choreographer mChoreographer;
+
+	private boolean mRunning;
+	private long mStartTimeNanos;
+	private long mDurationNanos;
+	private TimeInterpolator mInterpolator;
+	private Callback mCallback;
+
+	private View mTopView;
+	private float mFromX;
+	private float mFromY;
+	private float mFromRotation;
+	private float mFromAlpha;
+	private float mToX;
+	private float mToY;
+	private float mToRotation;
+	private float mToAlpha;
+
+	private float mFromStackProgress;
+	private float mToStackProgress;
+
+	private final ArrayList<Flight> mFlights = new ArrayList<>();
+	private boolean mFramePosted;
+
+	private boolean mSpring;
+	private final Spring mSpringMotion = new Spring();
+	private float mDirectionX;
+	private float mDirectionY;
+	private long mLastFrameTimeNanos;
+
+	StackAnimator(SwipeStack swipeStack) {
+		mSwipeStack = swipeStack;
+		mChoreographer = Choreographer.getInstance();
+	}
+
+	/**
+	 * Moves the top card to the given values while the stack underneath
+	 * follows to the given stack progress.
+	 */
+	void animateTopView(View view, float toX, float toY, float toRotation, float toAlpha, float toStackProgress, int duration,
+			TimeInterpolator interpolator, Callback callback) {
+		animateTopView(view, toX, toY, toRotation, toAlpha, toStackProgress, duration, interpolator, 0, callback);
+	}
+
+	/**
+	 * @param velocityX The horizontal velocity of the top card in pixels per
+	 * second, used in spring mode. With 0, a running spring of the same card
+	 * keeps its velocity.
+	 */
+	void animateTopView(View view, float toX, float toY, float toRotation, float toAlpha, float toStackProgress, int duration,
+			TimeInterpolator interpolator, float velocityX, Callback callback) {
+		cancelFlight(view);
+		float velocityY = 0;
+		if (velocityX == 0 && mSpring && isAnimating(view)) {
+			velocityX = mDirectionX * mSpringMotion.getVelocity();
+			velocityY = mDirectionY * mSpringMotion.getVelocity();
+		}
+
+		mTopView = view;
+		mFromX = view.getX();
+		mFromY = view.getY();
+		mFromRotation = view.getRotation();
+		mFromAlpha = view.getAlpha();
+		mToX = toX;
+		mToY = toY;
+		mToRotation = toRotation;
+		mToAlpha = toAlpha;
+		start(toStackProgress, duration, interpolator, callback);
+
+		if (mSpring) {
+			float distanceX = toX - mFromX;
+			float distanceY = toY - mFromY;
+			float distance = (float) Math.hypot(distanceX, distanceY);
+			if (distance > 0) {
+				mDirectionX = distanceX / distance;
+				mDirectionY = distanceY / distance;
+			} else {
+				mDirectionX = 0;
+				mDirectionY = 0;
+			}
+			// Cards that only fade or rotate in place settle over the stack distance.
+			float stackDistance = Math.abs(mToStackProgress - mFromStackProgress) * mSwipeStack.getViewSpacing();
+			startSpring(Math.max(distance, stackDistance), velocityX * mDirectionX + velocityY * mDirectionY);
+		}
+	}
+
+	/**
+	 * Moves only the cards underneath the top card to the given stack progress.
+	 */
+	void animateStack(float toStackProgress, int duration, TimeInterpolator interpolator, Callback callback) {
+		mTopView = null;
+		start(toStackProgress, duration, interpolator, callback);
+		if (mSpring) startSpring(Math.abs(mToStackProgress - mFromStackProgress) * mSwipeStack.getViewSpacing(), 0);
+	}
+
+	void setSpring(boolean enabled, float stiffness, float dampingRatio) {
+		mSpring = enabled;
+		mSpringMotion.setParameters(stiffness, dampingRatio);
+	}
+
+	/**
+	 * Stops the running animation where it is, without invoking its callback.
+	 * Flights are not affected.
+	 */
+	void cancel() {
+		if (!mRunning) return;
+		mRunning = false;
+		mTopView = null;
+		mCallback = null;
+		if (mFlights.isEmpty()) removeFrame();
+	}
+
+	/**
+	 * Hands the top card of the running animation over to a flight that
+	 * finishes its movement on its own. The stack keeps following the running
+	 * animation.
+	 *
+	 * @return The callback of the running animation, which is not invoked anymore.
+	 */
+	Callback detachTopView() {
+		Callback callback = mCallback;
+		mCallback = null;
+		if (!mRunning || mTopView == null) return callback;
+
+		Flight flight = new Flight();
+		flight.view = mTopView;
+		flight.toX = mToX;
+		flight.toY = mToY;
+		flight.toRotation = mToRotation;
+		flight.toAlpha = mToAlpha;
+		if (mSpring) {
+			// Finish the remaining distance at the current speed.
+			flight.fromX = mTopView.getX();
+			flight.fromY = mTopView.getY();
+			flight.fromRotation = mTopView.getRotation();
+			flight.fromAlpha = mTopView.getAlpha();
+			flight.startTimeNanos = System.nanoTime();
+			float remainingDistance = Math.abs(mSpringMotion.getDistance() - mSpringMotion.getPosition());
+			float speed = Math.abs(mSpringMotion.getVelocity());
+			long durationNanos = speed > 0 ? (long) (remainingDistance / speed * 1000000000L) : MAX_FLIGHT_NANOS;
+			flight.durationNanos = Math.max(MIN_FLIGHT_NANOS, Math.min(durationNanos, MAX_FLIGHT_NANOS));
+		} else {
+			flight.fromX = mFromX;
+			flight.fromY = mFromY;
+			flight.fromRotation = mFromRotation;
+			flight.fromAlpha = mFromAlpha;
+			flight.startTimeNanos = mStartTimeNanos;
+			flight.durationNanos = mDurationNanos;
+			flight.interpolator = mInterpolator;
+		}
+		mFlights.add(flight);
+		mTopView = null;
+		return callback;
+	}
+
+	/**
+	 * Returns whether the top card of the running animation has a callback,
+	 * which is the case while it leaves the stack.
+	 */
+	boolean isLeaving(View view) {
+		return mRunning && view != null && mTopView == view && mCallback != null;
+	}
+
+	boolean isFlying(View view) {
+		return indexOfFlight(view) >= 0;
+	}
+
+	/**
+	 * Stops the flight of the given card where it is, without reporting its end.
+	 *
+	 * @return true if the card was flying.
+	 */
+	boolean cancelFlight(View view) {
+		int index = indexOfFlight(view);
+		if (index < 0) return false;
+		mFlights.remove(index);
+		if (mFlights.isEmpty() && !mRunning) removeFrame();
+		return true;
+	}
+
+	/**
+	 * Moves all flying cards to their targets and reports the end of their flights.
+	 */
+	void endFlights() {
+		while (!mFlights.isEmpty()) {
+			Flight flight = mFlights.remove(mFlights.size() - 1);
+			flight.apply(1);
+			mSwipeStack.onCardFlightEnd(flight.view);
+		}
+		if (!mRunning) removeFrame();
+	}
+
+	private int indexOfFlight(View view) {
+		for (int x = 0; x < mFlights.size(); x++) {
+			if (mFlights.get(x).view == view) return x;
+		}
+		return -1;
+	}
+
+	boolean isRunning() {
+		return mRunning;
+	}
+
+	boolean isAnimating(View view) {
+		return mRunning && view != null && mTopView == view;
+	}
+
+	private void start(float toStackProgress, int duration, TimeInterpolator interpolator, Callback callback) {
+		mFromStackProgress = mSwipeStack.getStackProgress();
+		mToStackProgress = toStackProgress;
+		mDurationNanos = Math.max(duration, 1) * 1000000L;
+		mInterpolator = interpolator;
+		mCallback = callback;
+		mStartTimeNanos = System.nanoTime();
+		mRunning = true;
+		postFrame();
+	}
+
+	private void startSpring(float distance, float velocity) {
+		mSpringMotion.start(distance, velocity);
+		mLastFrameTimeNanos = mStartTimeNanos;
+	}
+
+	/**
+	 * Advances the spring to the given frame time.
+	 *
+	 * @return true once the spring came to rest at its target.
+	 */
+	private boolean advanceSpring(long frameTimeNanos) {
+		float seconds = Math.min(Math.max(frameTimeNanos - mLastFrameTimeNanos, 0), MAX_SPRING_FRAME_NANOS) / 1000000000f;
+		mLastFrameTimeNanos = Math.max(frameTimeNanos, mLastFrameTimeNanos);
+		return mSpringMotion.advance(seconds);
+	}
+
+	private void postFrame() {
+		if (mFramePosted) return;
+		mFramePosted = true;
+		mChoreographer.postFrameCallback(this);
+	}
+
+	private void removeFrame() {
+		mFramePosted = false;
+		mChoreographer.removeFrameCallback(this);
+	}
+
+	@Override public void doFrame(long frameTimeNanos) {
+		mFramePosted = false;
+		if (!mFlights.isEmpty()) advanceFlights(frameTimeNanos);
+		if (!mRunning) return;
+
+		float value;
+		boolean finished;
+		if (mSpring) {
+			finished = advanceSpring(frameTimeNanos);
+			value = finished ? 1 : mSpringMotion.getPosition() / mSpringMotion.getDistance();
+		} else {
+			float fraction = Math.min(Math.max((float) (frameTimeNanos - mStartTimeNanos) / mDurationNanos, 0), 1);
+			value = mInterpolator == null ? fraction : mInterpolator.getInterpolation(fraction);
+			finished = fraction >= 1;
+		}
+
+		if (mTopView != null) {
+			mTopView.setX(mFromX + (mToX - mFromX) * value);
+			mTopView.setY(mFromY + (mToY - mFromY) * value);
+			mTopView.setRotation(mFromRotation + (mToRotation - mFromRotation) * value);
+			mTopView.setAlpha(Math.min(Math.max(mFromAlpha + (mToAlpha - mFromAlpha) * value, 0), 1));
+		}
+
+		float stackProgress = mFromStackProgress + (mToStackProgress - mFromStackProgress) * value;
+		mSwipeStack.applyStackProgress(Math.min(Math.max(stackProgress, 0), 1));
+
+		if (!finished) {
+			postFrame();
+			return;
+		}
+
+		Callback callback = mCallback;
+		mRunning = false;
+		mTopView = null;
+		mCallback = null;
+		if (callback != null) callback.onAnimationEnd();
+
+		// The callback may have started the next animation.
+		if (!mRunning) mSwipeStack.onStackAnimationEnd();
+	}
+
+	private void advanceFlights(long frameTimeNanos) {
+		for (int x = mFlights.size() - 1; x >= 0; x--) {
+			// Reporting the end of a flight may have ended the others.
+			if (x >= mFlights.size()) continue;
+			Flight flight = mFlights.get(x);
+			float fraction = Math.min(Math.max((float) (frameTimeNanos - flight.startTimeNanos) / flight.durationNanos, 0), 1);
+			flight.apply(flight.interpolator == null ? fraction : flight.interpolator.getInterpolation(fraction));
+			if (fraction >= 1) {
+				mFlights.remove(x);
+				mSwipeStack.onCardFlightEnd(flight.view);
+			}
+		}
+		// Flying cards are no children anymore and are drawn by the stack.
+		mSwipeStack.invalidate();
+		if (!mFlights.isEmpty()) postFrame();
+	}
+
+	private static final class Flight {
+		View view;
+		float fromX;
+		float fromY;
+		float fromRotation;
+		float fromAlpha;
+		float toX;
+		float toY;
+		float toRotation;
+		float toAlpha;
+		long startTimeNanos;
+		long durationNanos;
+		TimeInterpolator interpolator;
+
+		void apply(float value) {
+			view.setX(fromX + (toX - fromX) * value);
+			view.setY(fromY + (toY - fromY) * value);
+			view.setRotation(fromRotation + (toRotation - fromRotation) * value);
+			view.setAlpha(Math.min(Math.max(fromAlpha + (toAlpha - fromAlpha) * value, 0), 1));
+		}
+	}
+}
@@ -16,17 +16,26 @@
 
 package be.trikke.swipestack;
 
-import android.animation.Animator;
+import android.animation.TimeInterpolator;
+import android.view.Choreographer;
 import android.view.GestureDetector;
 import android.view.MotionEvent;
+import android.view.VelocityTracker;
 import android.view.View;
+import android.view.ViewConfiguration;
 import android.view.animation.LinearInterpolator;
 import android.view.animation.OvershootInterpolator;
-import be.trikke.swipestack.util.AnimationUtils;
 
 public class SwipeHelper implements View.OnTouchListener {
 
+	private static final int MIN_FLING_DURATION = 50;
+
+	static final TimeInterpolator DEFAULT_SWIPE_INTERPOLATOR = new LinearInterpolator();
+	static final TimeInterpolator DEFAULT_RESET_INTERPOLATOR = new OvershootInterpolator(1.4f);
+
 	private final SwipeStack mSwipeStack;
+	private final StackAnimator mAnimator;
+	private final Choreographer mChoreographer;
 	private View mObservedView;
 
 	private boolean mListenForTouchEvents;
@@ -38,22 +47,61 @@ public class SwipeHelper implements View.OnTouchListener {
 
 	private float mRotateDegrees = SwipeStack.DEFAULT_SWIPE_ROTATION;
 	private float mOpacityEnd = SwipeStack.DEFAULT_SWIPE_OPACITY;
+	private boolean mFadeEnabled = true;
 	private int mAnimationDuration = SwipeStack.DEFAULT_ANIMATION_DURATION;
+	private float mFlingMinVelocity;
+	private int mFlingMinDistance;
+	private final float mMaxFlingVelocity;
+	private VelocityTracker mVelocityTracker;
+
+	private boolean mCoalesceMoves;
+	private boolean mMovePending;
+	private float mPendingX;
+	private float mPendingY;
+
+	private TimeInterpolator mSwipeLeftInterpolator = DEFAULT_SWIPE_INTERPOLATOR;
+	private TimeInterpolator mSwipeRightInterpolator = DEFAULT_SWIPE_INTERPOLATOR;
+	private TimeInterpolator mResetInterpolator = DEFAULT_RESET_INTERPOLATOR;
+
+	private final StackAnimator.Callback mSwipedToLeftCallback = new StackAnimator.Callback() {
+		@Override public void onAnimationEnd() {
+			mSwipeStack.onViewSwipedToLeft();
+		}
+	};
+
+	private final StackAnimator.Callback mSwipedToRightCallback = new StackAnimator.Callback() {
+		@Override public void onAnimationEnd() {
+			mSwipeStack.onViewSwipedToRight();
+		}
+	};
+
+	private final Choreographer.FrameCallback mMoveFrameCallback = new Choreographer.FrameCallback() {
+		@Override public void doFrame(long frameTimeNanos) {
+			if (!mMovePending) return;
+			mMovePending = false;
+			moveObservedView(mPendingX, mPendingY);
+		}
+	};
 
 	private GestureDetector gestureDetector;
 
 	public SwipeHelper(SwipeStack swipeStack) {
 		mSwipeStack = swipeStack;
-
-		gestureDetector = new GestureDetector(mSwipeStack.getContext(), new GestureDetector.SimpleOnGestureListener() {
-			@Override public boolean onSingleTapConfirmed(MotionEvent e) {
-				mSwipeStack.onViewTapped();
-				return super.onSingleTapConfirmed(e);
-			}
-		});
+		mAnimator = swipeStack.getStackAnimator();
+		mChoreographer = Choreographer.getInstance();
+		mMaxFlingVelocity = ViewConfiguration.get(swipeStack.getContext()).getScaledMaximumFlingVelocity();
 	}
 
 	@Override public boolean onTouch(View v, MotionEvent event) {
+		// Created on the first touch, stacks that are never touched don't need it.
+		if (gestureDetector == null) {
+			gestureDetector = new GestureDetector(mSwipeStack.getContext(), new GestureDetector.SimpleOnGestureListener() {
+				@Override public boolean onSingleTapConfirmed(MotionEvent e) {
+					mSwipeStack.onViewTapped();
+					return super.onSingleTapConfirmed(e);
+				}
+			});
+		}
 		gestureDetector.onTouchEvent(event);
 		switch (event.getAction()) {
 			case MotionEvent.ACTION_DOWN:
@@ -62,43 +110,78 @@ public class SwipeHelper implements View.OnTouchListener {
 				}
 				mListenForTouchEvents = false;
 				v.getParent().requestDisallowInterceptTouchEvent(true);
+				cancelPendingMove();
 				mSwipeStack.onSwipeStart();
 				mPointerId = (event.getAction() & MotionEvent.ACTION_POINTER_INDEX_MASK) >> MotionEvent.ACTION_POINTER_INDEX_SHIFT;
 				mDownX = event.getX(mPointerId);
 				mDownY = event.getY(mPointerId);
+
+				if (mVelocityTracker == null) {
+					mVelocityTracker = VelocityTracker.obtain();
+				} else {
+					mVelocityTracker.clear();
+				}
+				addMovement(v, event);
 				return true;
 
 			case MotionEvent.ACTION_MOVE:
 				int pointerIndex = event.findPointerIndex(mPointerId);
 				if (pointerIndex < 0) return false;
+				addMovement(v, event);
+				mSwipeStack.onSwipeMove(event.getEventTime());
 
 				float dx = event.getX(pointerIndex) - mDownX;
 				float dy = event.getY(pointerIndex) - mDownY;
 
+				// The event is relative to the card, which only moves once a pending move is applied.
 				float newX = mObservedView.getX() + dx;
 				float newY = mObservedView.getY() + dy;
 
-				mObservedView.setX(newX);
-				mObservedView.setY(newY);
+				if (mCoalesceMoves) {
+					mPendingX = newX;
+					mPendingY = newY;
+					if (!mMovePending) {
+						mMovePending = true;
+						mChoreographer.postFrameCallback(mMoveFrameCallback);
+					}
+				} else {
+					moveObservedView(newX, newY);
+				}
 
-				float viewCenterHorizontal = newX + (mObservedView.getWidth() / 2) - (mSwipeStack.getWidth() / 2);
-				float swipeProgress = Math.min(Math.max(viewCenterHorizontal / (mSwipeStack.getWidth()) * 2, -1), 1);
-				mSwipeStack.onSwipeProgress(swipeProgress);
+				return true;
 
-				if (mRotateDegrees > 0) {
-					mObservedView.setRotation(newX / 60);
-				}
+			case MotionEvent.ACTION_UP:
+				mListenForTouchEvents = true;
+				v.getParent().requestDisallowInterceptTouchEvent(false);
 
-				if (mOpacityEnd < 1f) {
-					mObservedView.setAlpha(1 - Math.min(Math.abs(swipeProgress * 2), 1));
+				float velocityX = 0;
+				if (mVelocityTracker != null) {
+					// The event is relative to the card before a pending move is applied.
+					addMovement(v, event);
+					mVelocityTracker.computeCurrentVelocity(1000, mMaxFlingVelocity);
+					velocityX = mVelocityTracker.getXVelocity(mPointerId);
+					mVelocityTracker.recycle();
+					mVelocityTracker = null;
+				}
+				if (mMovePending) {
+					cancelPendingMove();
+					moveObservedView(mPendingX, mPendingY);
 				}
+				mSwipeStack.onViewReleased(velocityX);
+				checkViewPosition(velocityX);
 
 				return true;
 
-			case MotionEvent.ACTION_UP:
+			case MotionEvent.ACTION_CANCEL:
+				// Only a drag that started with a down event holds a tracker.
+				if (mVelocityTracker == null) return false;
+				mVelocityTracker.recycle();
+				mVelocityTracker = null;
+				cancelPendingMove();
 				mListenForTouchEvents = true;
 				v.getParent().requestDisallowInterceptTouchEvent(false);
-				checkViewPosition();
+				mSwipeStack.onSwipeEnd(false);
+				resetViewPosition(0);
 
 				return true;
 		}
@@ -106,89 +189,112 @@ public class SwipeHelper implements View.OnTouchListener {
 		return false;
 	}
 
-	private void checkViewPosition() {
+	private void moveObservedView(float newX, float newY) {
+		mObservedView.setX(newX);
+		mObservedView.setY(newY);
+
+		float viewCenterHorizontal = newX + (mObservedView.getWidth() / 2) - (mSwipeStack.getWidth() / 2);
+		float swipeProgress = Math.min(Math.max(viewCenterHorizontal / (mSwipeStack.getWidth()) * 2, -1), 1);
+		mSwipeStack.onSwipeProgress(swipeProgress);
+
+		if (mRotateDegrees > 0) {
+			mObservedView.setRotation(newX / 60);
+		}
+
+		if (mFadeEnabled && mOpacityEnd < 1f) {
+			mObservedView.setAlpha(1 - Math.min(Math.abs(swipeProgress * 2), 1));
+		}
+	}
+
+	private void cancelPendingMove() {
+		if (!mMovePending) return;
+		mMovePending = false;
+		mChoreographer.removeFrameCallback(mMoveFrameCallback);
+	}
+
+	private void addMovement(View v, MotionEvent event) {
+		// The event is relative to the card, which moves with the finger.
+		float x = event.getX();
+		float y = event.getY();
+		event.setLocation(x + v.getX(), y + v.getY());
+		mVelocityTracker.addMovement(event);
+		event.setLocation(x, y);
+	}
+
+	private void checkViewPosition(float velocityX) {
 		if (!mSwipeStack.isEnabled()) {
 			mSwipeStack.onSwipeEnd(false);
-			resetViewPosition();
+			resetViewPosition(velocityX);
 			return;
 		}
 
 		float viewCenterHorizontal = mObservedView.getX() + (mObservedView.getWidth() / 2);
+		float distanceX = mObservedView.getX() - mInitialX;
+		boolean isFling = Math.abs(velocityX) >= mFlingMinVelocity && Math.abs(distanceX) >= mFlingMinDistance;
 
-		if (viewCenterHorizontal < 0 && mSwipeStack.getAllowedSwipeDirections() != SwipeStack.SWIPE_DIRECTION_ONLY_RIGHT) {
+		if ((viewCenterHorizontal < 0 || (isFling && velocityX < 0 && distanceX < 0))
+				&& mSwipeStack.getAllowedSwipeDirections() != SwipeStack.SWIPE_DIRECTION_ONLY_RIGHT) {
 			mSwipeStack.onSwipeEnd(true);
-			swipeViewToLeft();
-		} else if (viewCenterHorizontal > mSwipeStack.getWidth() && mSwipeStack.getAllowedSwipeDirections() != SwipeStack.SWIPE_DIRECTION_ONLY_LEFT) {
+			swipeViewToLeft(velocityX);
+		} else if ((viewCenterHorizontal > mSwipeStack.getWidth() || (isFling && velocityX > 0 && distanceX > 0))
+				&& mSwipeStack.getAllowedSwipeDirections() != SwipeStack.SWIPE_DIRECTION_ONLY_LEFT) {
 			mSwipeStack.onSwipeEnd(true);
-			swipeViewToRight();
+			swipeViewToRight(velocityX);
 		} else {
 			mSwipeStack.onSwipeEnd(false);
-			resetViewPosition();
+			resetViewPosition(velocityX);
 		}
 	}
 
 	public void resetTopViewToPosition() {
-		resetViewPosition();
+		if (mObservedView == null) return;
+		resetViewPosition(0);
 		mListenForTouchEvents = true;
 	}
 
-	private void resetViewPosition() {
-		mObservedView.animate().setListener(null).cancel();
-		mObservedView.clearAnimation();
-		mObservedView.animate()
-		             .x(mInitialX)
-		             .y(mInitialY)
-		             .rotation(0)
-		             .alpha(1)
-		             .setDuration(mAnimationDuration)
-		             .setInterpolator(new OvershootInterpolator(1.4f))
-		             .setListener(null);
+	private void resetViewPosition(float velocityX) {
+		mAnimator.animateTopView(mObservedView, mInitialX, mInitialY, 0, 1, 0f, mAnimationDuration, mResetInterpolator, velocityX, null);
 	}
 
 	void swipeViewToLeft() {
+		swipeViewToLeft(0);
+	}
+
+	private void swipeViewToLeft(float velocityX) {
 		if (!mListenForTouchEvents) return;
 		mListenForTouchEvents = false;
-		mObservedView.animate().setListener(null).cancel();
-		mObservedView.clearAnimation();
-		mObservedView.animate()
-		             .x(-mSwipeStack.getWidth() + mObservedView.getX())
-		             .rotation(-mRotateDegrees)
-		             .alpha(0f)
-		             .setDuration(mAnimationDuration)
-		             .setInterpolator(new LinearInterpolator())
-		             .setListener(new AnimationUtils.AnimationEndListener() {
-			             private boolean ended;
-
-			             @Override public void onAnimationEnd(Animator animation) {
-				             if (ended) return;
-
-				             ended = true;
-				             mSwipeStack.onViewSwipedToLeft();
-			             }
-		             });
+		float targetX = -mSwipeStack.getWidth() + mObservedView.getX();
+		mAnimator.animateTopView(mObservedView, targetX, mObservedView.getY(), -mRotateDegrees, getExitAlpha(), 1f,
+				getExitDuration(targetX, velocityX), mSwipeLeftInterpolator, velocityX, mSwipedToLeftCallback);
 	}
 
 	void swipeViewToRight() {
+		swipeViewToRight(0);
+	}
+
+	private void swipeViewToRight(float velocityX) {
 		if (!mListenForTouchEvents) return;
 		mListenForTouchEvents = false;
-		mObservedView.animate().setListener(null).cancel();
-		mObservedView.clearAnimation();
-		mObservedView.animate()
-		             .x(mSwipeStack.getWidth() + mObservedView.getX())
-		             .rotation(mRotateDegrees)
-		             .alpha(0f)
-		             .setDuration(mAnimationDuration)
-		             .setInterpolator(new LinearInterpolator())
-		             .setListener(new AnimationUtils.AnimationEndListener() {
-			             private boolean ended;
-
-			             @Override public void onAnimationEnd(Animator animation) {
-				             if (ended) return;
-
-				             ended = true;
-				             mSwipeStack.onViewSwipedToRight();
-			             }
-		             });
+		float targetX = mSwipeStack.getWidth() + mObservedView.getX();
+		mAnimator.animateTopView(mObservedView, targetX, mObservedView.getY(), mRotateDegrees, getExitAlpha(), 1f,
+				getExitDuration(targetX, velocityX), mSwipeRightInterpolator, velocityX, mSwipedToRightCallback);
+	}
+
+	private float getExitAlpha() {
+		return mFadeEnabled ? 0f : 1f;
+	}
+
+	/**
+	 * Returns a duration that lets the card leave at the speed it was thrown,
+	 * or the configured duration if it was not thrown towards the target.
+	 */
+	private int getExitDuration(float targetX, float velocityX) {
+		float distance = targetX - mObservedView.getX();
+		if (Math.abs(velocityX) < mFlingMinVelocity || Math.signum(velocityX) != Math.signum(distance)) {
+			return mAnimationDuration;
+		}
+		int duration = (int) (Math.abs(distance) / Math.abs(velocityX) * 1000);
+		return Math.max(MIN_FLING_DURATION, Math.min(duration, mAnimationDuration));
 	}
 
 	public void registerObservedView(View view, float initialX, float initialY) {
@@ -201,6 +307,7 @@ public class SwipeHelper implements View.OnTouchListener {
 	}
 
 	public void unregisterObservedView() {
+		cancelPendingMove();
 		if (mObservedView != null) {
 			mObservedView.setOnTouchListener(null);
 		}
@@ -208,6 +315,18 @@ public class SwipeHelper implements View.OnTouchListener {
 		mListenForTouchEvents = false;
 	}
 
+	public boolean isListeningForTouchEvents() {
+		return mListenForTouchEvents;
+	}
+
+	public View getObservedView() {
+		return mObservedView;
+	}
+
+	public boolean isDragging(View view) {
+		return view != null && view == mObservedView && !mListenForTouchEvents;
+	}
+
 	public void setAnimationDuration(int duration) {
 		mAnimationDuration = duration;
 	}
@@ -220,6 +339,34 @@ public class SwipeHelper implements View.OnTouchListener {
 		mOpacityEnd = alpha;
 	}
 
+	void setFadeEnabled(boolean enabled) {
+		mFadeEnabled = enabled;
+	}
+
+	public void setCoalesceMoves(boolean coalesce) {
+		mCoalesceMoves = coalesce;
+	}
+
+	public void setFlingMinVelocity(float pixelsPerSecond) {
+		mFlingMinVelocity = pixelsPerSecond;
+	}
+
+	public void setFlingMinDistance(int pixels) {
+		mFlingMinDistance = pixels;
+	}
+
+	public void setSwipeLeftInterpolator(TimeInterpolator interpolator) {
+		mSwipeLeftInterpolator = interpolator != null ? interpolator : DEFAULT_SWIPE_INTERPOLATOR;
+	}
+
+	public void setSwipeRightInterpolator(TimeInterpolator interpolator) {
+		mSwipeRightInterpolator = interpolator != null ? interpolator : DEFAULT_SWIPE_INTERPOLATOR;
+	}
+
+	public void setResetInterpolator(TimeInterpolator interpolator) {
+		mResetInterpolator = interpolator != null ? interpolator : DEFAULT_RESET_INTERPOLATOR;
+	}
+
 	public float getInitialX() {
 		return mInitialX;
 	}
@@ -0,0 +1,146 @@
+/*
+ * Copyright (C) 2016 Frederik Schweiger
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package be.trikke.swipestack;
+
+/**
+ * Frame timing of a single swipe gesture, from the moment the user touches the
+ * top card until it has been dismissed or has moved back to its position.
+ * <p>
+ * The same instance is reused for every gesture, so copy the values that need
+ * to be kept beyond {@link SwipeStack.SwipeMetricsListener#onSwipeMetrics}.
+ */
+public final class SwipeMetrics {
+
+	int position;
+	long durationNanos;
+	long frameIntervalNanos;
+	int frameCount;
+	int lateFrameCount;
+	int droppedFrameCount;
+	long worstFrameNanos;
+	long viewCreationNanos;
+	int createdViewCount;
+	long firstMoveLatencyNanos = -1;
+
+	SwipeMetrics() {
+	}
+
+	/**
+	 * Returns the adapter position of the card that was swiped.
+	 *
+	 * @return The position of the card.
+	 */
+	public int getPosition() {
+		return position;
+	}
+
+	/**
+	 * Returns the time from touching the card until its animation ended.
+	 *
+	 * @return The duration in nanoseconds.
+	 */
+	public long getDurationNanos() {
+		return durationNanos;
+	}
+
+	/**
+	 * Returns the expected time between two frames on the display.
+	 *
+	 * @return The frame interval in nanoseconds.
+	 */
+	public long getFrameIntervalNanos() {
+		return frameIntervalNanos;
+	}
+
+	/**
+	 * Returns the number of frames drawn during the gesture.
+	 *
+	 * @return The frame count.
+	 */
+	public int getFrameCount() {
+		return frameCount;
+	}
+
+	/**
+	 * Returns the number of frames that took longer than the frame interval.
+	 *
+	 * @return The late frame count.
+	 */
+	public int getLateFrameCount() {
+		return lateFrameCount;
+	}
+
+	/**
+	 * Returns the number of vsyncs that passed without a new frame.
+	 *
+	 * @return The dropped frame count.
+	 */
+	public int getDroppedFrameCount() {
+		return droppedFrameCount;
+	}
+
+	/**
+	 * Returns the longest time between two frames during the gesture.
+	 *
+	 * @return The worst frame duration in nanoseconds.
+	 */
+	public long getWorstFrameNanos() {
+		return worstFrameNanos;
+	}
+
+	/**
+	 * Returns the time spent creating, binding and measuring cards that were
+	 * added to the stack during the gesture.
+	 *
+	 * @return The view creation time in nanoseconds.
+	 */
+	public long getViewCreationNanos() {
+		return viewCreationNanos;
+	}
+
+	/**
+	 * Returns the number of cards added to the stack during the gesture.
+	 *
+	 * @return The number of created cards.
+	 */
+	public int getCreatedViewCount() {
+		return createdViewCount;
+	}
+
+	/**
+	 * Returns the time from the first move event until the frame showing the
+	 * moved card started.
+	 *
+	 * @return The latency in nanoseconds or -1 if the card was not dragged.
+	 */
+	public long getFirstMoveLatencyNanos() {
+		return firstMoveLatencyNanos;
+	}
+
+	void reset(int position, long frameIntervalNanos) {
+		this.position = position;
+		this.frameIntervalNanos = frameIntervalNanos;
+		durationNanos = 0;
+		frameCount = 0;
+		lateFrameCount = 0;
+		droppedFrameCount = 0;
+		worstFrameNanos = 0;
+		viewCreationNanos = 0;
+		createdViewCount = 0;
+		firstMoveLatencyNanos = -1;
+	}
+}
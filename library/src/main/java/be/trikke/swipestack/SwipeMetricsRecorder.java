@@ -0,0 +1,112 @@
+/*
+ * Copyright (C) 2016 Frederik Schweiger
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package be.trikke.swipestack;
+
+import android.content.Context;
+import android.view.Choreographer;
+import android.view.WindowManager;
+
+/**
+ * Collects the {@link SwipeMetrics} of a gesture. It only exists while a
+ * metrics listener is set and only observes frames while a gesture is running.
+ */
+final class SwipeMetricsRecorder implements Choreographer.FrameCallback {
+
+	private static final float DEFAULT_REFRESH_RATE = 60f;
+
+	private final SwipeStack.SwipeMetricsListener mListener;
+	private final Choreographer mChoreographer;
+	private final SwipeMetrics mMetrics = new SwipeMetrics();
+	private final long mFrameIntervalNanos;
+
+	private boolean mRecording;
+	private long mStartTimeNanos;
+	private long mLastFrameTimeNanos;
+	private long mFirstMoveTimeNanos;
+
+	SwipeMetricsRecorder(Context context, SwipeStack.SwipeMetricsListener listener) {
+		mListener = listener;
+		mChoreographer = Choreographer.getInstance();
+
+		WindowManager windowManager = (WindowManager) context.getSystemService(Context.WINDOW_SERVICE);
+		float refreshRate = windowManager.getDefaultDisplay().getRefreshRate();
+		if (refreshRate < 1) refreshRate = DEFAULT_REFRESH_RATE;
+		mFrameIntervalNanos = (long) (1000000000L / refreshRate);
+	}
+
+	void onGestureStart(int position) {
+		if (mRecording) onGestureEnd();
+
+		mMetrics.reset(position, mFrameIntervalNanos);
+		mRecording = true;
+		mStartTimeNanos = System.nanoTime();
+		mLastFrameTimeNanos = 0;
+		mFirstMoveTimeNanos = 0;
+		mChoreographer.postFrameCallback(this);
+	}
+
+	/**
+	 * @param eventTime The time of the move event in the {@link android.os.SystemClock#uptimeMillis()} time base.
+	 */
+	void onMove(long eventTime) {
+		if (mRecording && mFirstMoveTimeNanos == 0) {
+			mFirstMoveTimeNanos = eventTime * 1000000L;
+		}
+	}
+
+	void onViewCreated(long durationNanos) {
+		if (!mRecording) return;
+		mMetrics.viewCreationNanos += durationNanos;
+		mMetrics.createdViewCount++;
+	}
+
+	void onGestureEnd() {
+		if (!mRecording) return;
+		mRecording = false;
+		mChoreographer.removeFrameCallback(this);
+
+		mMetrics.durationNanos = System.nanoTime() - mStartTimeNanos;
+		mListener.onSwipeMetrics(mMetrics);
+	}
+
+	void cancel() {
+		mRecording = false;
+		mChoreographer.removeFrameCallback(this);
+	}
+
+	@Override public void doFrame(long frameTimeNanos) {
+		if (!mRecording) return;
+
+		if (mLastFrameTimeNanos != 0) {
+			long frameNanos = frameTimeNanos - mLastFrameTimeNanos;
+			mMetrics.frameCount++;
+			mMetrics.worstFrameNanos = Math.max(mMetrics.worstFrameNanos, frameNanos);
+			// Allow for some jitter of the vsync timestamps.
+			long missedFrames = (frameNanos + mFrameIntervalNanos / 2) / mFrameIntervalNanos - 1;
+			if (missedFrames > 0) {
+				mMetrics.lateFrameCount++;
+				mMetrics.droppedFrameCount += missedFrames;
+			}
+		}
+		mLastFrameTimeNanos = frameTimeNanos;
+
+		if (mFirstMoveTimeNanos != 0 && mMetrics.firstMoveLatencyNanos < 0) {
+			mMetrics.firstMoveLatencyNanos = Math.max(frameTimeNanos - mFirstMoveTimeNanos, 0);
+		}
+		mChoreographer.postFrameCallback(this);
+	}
+}
@@ -16,21 +16,35 @@
 
 package be.trikke.swipestack;
 
+import android.animation.TimeInterpolator;
+import android.content.ComponentCallbacks2;
 import android.content.Context;
-import android.content.res.TypedArray;
+import android.content.res.Configuration;
 import android.database.DataSetObserver;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.RectF;
+import android.os.AsyncTask;
 import android.os.Build;
 import android.os.Bundle;
+import android.os.CancellationSignal;
+import android.os.Looper;
+import android.os.MessageQueue;
 import android.os.Parcelable;
+import android.os.SystemClock;
 import android.support.annotation.Nullable;
 import android.util.AttributeSet;
+import android.util.SparseArray;
 import android.view.View;
 import android.view.ViewGroup;
 import android.widget.Adapter;
-import android.widget.FrameLayout;
+import android.widget.AdapterView;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Random;
-
-import static android.R.attr.x;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 
 public class SwipeStack extends ViewGroup {
 
@@ -38,6 +52,16 @@ public class SwipeStack extends ViewGroup {
 	public static final int SWIPE_DIRECTION_ONLY_LEFT = 1;
 	public static final int SWIPE_DIRECTION_ONLY_RIGHT = 2;
 
+	public static final int LAYER_STRATEGY_PERMANENT = 0;
+	public static final int LAYER_STRATEGY_TRANSIENT = 1;
+	public static final int LAYER_STRATEGY_TOP_ONLY = 2;
+
+	public static final int QUALITY_TIER_FULL = 0;
+	public static final int QUALITY_TIER_NO_FADE = 1;
+	public static final int QUALITY_TIER_NO_ROTATION = 2;
+	public static final int QUALITY_TIER_STATIC_STACK = 3;
+	public static final int QUALITY_TIER_REDUCED_STACK = 4;
+
 	public static final int DEFAULT_ANIMATION_DURATION = 400;
 	public static final int DEFAULT_STACK_SIZE = 3;
 	public static final int DEFAULT_STACK_ROTATION = 0;
@@ -45,29 +69,143 @@ public class SwipeStack extends ViewGroup {
 	public static final float DEFAULT_SWIPE_OPACITY = 1f;
 	public static final float DEFAULT_SCALE_FACTOR = 1f;
 	public static final boolean DEFAULT_DISABLE_HW_ACCELERATION = true;
+	public static final int DEFAULT_LAYER_STRATEGY = LAYER_STRATEGY_PERMANENT;
+	public static final int DEFAULT_PREFETCH_DEPTH = 0;
+	public static final boolean DEFAULT_COALESCE_TOUCH_EVENTS = false;
+	public static final boolean DEFAULT_SNAPSHOT_BACKGROUND_CARDS = false;
+	public static final float DEFAULT_SNAPSHOT_SCALE = 1f;
+	public static final int DEFAULT_SNAPSHOT_BUDGET = 8 * 1024 * 1024;
+	public static final boolean DEFAULT_OCCLUSION_CULLING = false;
+	public static final int DEFAULT_RESOURCE_PREFETCH_LOOKAHEAD = 3;
+	public static final int DEFAULT_UNDO_DEPTH = 0;
+	public static final int DEFAULT_SWIPE_STAGGER = 60;
+	public static final boolean DEFAULT_ADAPTIVE_QUALITY = false;
+	public static final boolean DEFAULT_SPRING_ANIMATION = false;
+	public static final float DEFAULT_SPRING_STIFFNESS = 400f;
+	public static final float DEFAULT_SPRING_DAMPING = 0.75f;
+
+	private static final int STACK_SHIFT_DURATION = 100;
+	private static final int REDUCED_STACK_SIZE = 2;
+
+	// Only used on the main thread, and shared by all stacks.
+	private static final Random RANDOM = new Random();
+
+	private static final int EXIT_DIRECTION_NONE = 0;
+	private static final int EXIT_DIRECTION_LEFT = -1;
+	private static final int EXIT_DIRECTION_RIGHT = 1;
 
 	private static final String KEY_SUPER_STATE = "superState";
 	private static final String KEY_CURRENT_INDEX = "currentIndex";
 
 	private Adapter mAdapter;
-	private Random mRandom;
+	private RecycledCardPool mCardPool = new RecycledCardPool();
+	private boolean mSharedCardPool;
+	private final ArrayList<View> mPrefetchedViews = new ArrayList<>();
+	private int mPrefetchedWidth;
+	private int mPrefetchedHeight;
+	private boolean mPrefetchScheduled;
+	private Executor mBackgroundExecutor = AsyncTask.THREAD_POOL_EXECUTOR;
+	private AsyncCardInflater mAsyncInflater;
+	private ResourcePrefetcher mResourcePrefetcher;
+	private int mResourcePrefetchLookahead = DEFAULT_RESOURCE_PREFETCH_LOOKAHEAD;
+	private SparseArray<ResourceRequest> mResourceRequests = new SparseArray<>();
+	private SparseArray<ResourceRequest> mShiftedResourceRequests = new SparseArray<>();
+	private int mRequestedResourceEnd;
+	private final ArrayDeque<DismissedCard> mDismissedCards = new ArrayDeque<>();
+	private int mUndoDepth;
+	private int mExitDirection = EXIT_DIRECTION_NONE;
+	private final ArrayDeque<PendingSwipe> mPendingSwipes = new ArrayDeque<>();
+	private SwipeBatch mTopViewBatch;
+	private long mNextSwipeTime;
+	private int mSwipeStagger = DEFAULT_SWIPE_STAGGER;
+	private BatchSwipeListener mBatchListener;
+	private final Runnable mPendingSwipeRunnable = new Runnable() {
+		@Override public void run() {
+			runPendingSwipes();
+		}
+	};
 
 	private int mAllowedSwipeDirections;
 	private int mAnimationDuration;
 	private int mCurrentViewIndex;
 	private int mNumberOfStackedViews;
+	private int mPrefetchDepth;
 	private int mViewSpacing;
+	private boolean mSpringAnimation;
+	private float mSpringStiffness;
+	private float mSpringDamping;
 	private int mViewRotation;
 	private float mSwipeRotation;
 	private float mSwipeOpacity;
 	private float mScaleFactor;
 	private boolean mDisableHwAcceleration;
+	private int mLayerStrategy;
+	private boolean mCardLayersActive;
+	private float mFlingMinVelocity;
+	private int mFlingMinDistance;
+	private boolean mCoalesceTouchEvents;
+	private boolean mSnapshotBackgroundCards;
+	private float mSnapshotScale;
+	private int mSnapshotBudget = DEFAULT_SNAPSHOT_BUDGET;
+	private CardSnapshotPool mSnapshotPool;
+	private Canvas mSnapshotCanvas;
+	private Paint mSnapshotPaint;
+	private boolean mOcclusionCulling;
+	private final RectF mChildBounds = new RectF();
+	private final RectF mOccluderBounds = new RectF();
+	private int mReleasedViewCount;
+	private long mReleasedSnapshotBytes;
 	private boolean mIsFirstLayout = true;
+	private float mStackProgress;
 
+	private StackAnimator mStackAnimator;
 	private SwipeHelper mSwipeHelper;
 	private DataSetObserver mDataObserver;
+	private SwipeStackAdapter.ItemObserver mItemObserver;
 	private SwipeStackListener mListener;
 	private SwipeProgressListener mProgressListener;
+	private SwipeVelocityListener mVelocityListener;
+	private SwipeMetricsRecorder mMetricsRecorder;
+	private boolean mGestureEndPending;
+	private SwipeMetricsListener mMetricsListener;
+	private QualityTierTracker mQualityTierTracker;
+	private QualityTierListener mQualityTierListener;
+	private int mQualityTier = QUALITY_TIER_FULL;
+	private int mRequestedQualityTier = QUALITY_TIER_FULL;
+	private int mConfiguredStackSize;
+
+	private final SwipeMetricsListener mMetricsDispatcher = new SwipeMetricsListener() {
+		@Override public void onSwipeMetrics(SwipeMetrics metrics) {
+			if (mQualityTierTracker != null) requestQualityTier(mQualityTierTracker.onSwipeMetrics(metrics, mRequestedQualityTier));
+			if (mMetricsListener != null) mMetricsListener.onSwipeMetrics(metrics);
+		}
+	};
+
+	private final Runnable mQualityTierRunnable = new Runnable() {
+		@Override public void run() {
+			setQualityTier(mRequestedQualityTier);
+		}
+	};
+
+	private final MessageQueue.IdleHandler mPrefetchIdleHandler = new MessageQueue.IdleHandler() {
+		@Override public boolean queueIdle() {
+			mPrefetchScheduled = prefetchNextView();
+			return mPrefetchScheduled;
+		}
+	};
+
+	private final ComponentCallbacks2 mTrimMemoryCallbacks = new ComponentCallbacks2() {
+		@Override public void onTrimMemory(int level) {
+			trimMemory(level);
+		}
+
+		@Override public void onConfigurationChanged(Configuration newConfig) {
+		}
+
+		@Override public void onLowMemory() {
+			trimMemory(TRIM_MEMORY_COMPLETE);
+		}
+	};
 
 	public SwipeStack(Context context) {
 		this(context, null);
@@ -84,44 +222,49 @@ public class SwipeStack extends ViewGroup {
 	}
 
 	private void readAttributes(AttributeSet attributeSet) {
-		TypedArray attrs = getContext().obtainStyledAttributes(attributeSet, be.trikke.swipestack.R.styleable.SwipeStack);
-
-		try {
-			mAllowedSwipeDirections = attrs.getInt(be.trikke.swipestack.R.styleable.SwipeStack_allowed_swipe_directions, SWIPE_DIRECTION_BOTH);
-			mAnimationDuration = attrs.getInt(be.trikke.swipestack.R.styleable.SwipeStack_animation_duration, DEFAULT_ANIMATION_DURATION);
-			mNumberOfStackedViews = attrs.getInt(be.trikke.swipestack.R.styleable.SwipeStack_stack_size, DEFAULT_STACK_SIZE);
-			mViewSpacing = attrs.getDimensionPixelSize(be.trikke.swipestack.R.styleable.SwipeStack_stack_spacing,
-					getResources().getDimensionPixelSize(be.trikke.swipestack.R.dimen.default_stack_spacing));
-			mViewRotation = attrs.getInt(be.trikke.swipestack.R.styleable.SwipeStack_stack_rotation, DEFAULT_STACK_ROTATION);
-			mSwipeRotation = attrs.getFloat(be.trikke.swipestack.R.styleable.SwipeStack_swipe_rotation, DEFAULT_SWIPE_ROTATION);
-			mSwipeOpacity = attrs.getFloat(be.trikke.swipestack.R.styleable.SwipeStack_swipe_opacity, DEFAULT_SWIPE_OPACITY);
-			mScaleFactor = attrs.getFloat(be.trikke.swipestack.R.styleable.SwipeStack_scale_factor, DEFAULT_SCALE_FACTOR);
-			mDisableHwAcceleration = attrs.getBoolean(be.trikke.swipestack.R.styleable.SwipeStack_disable_hw_acceleration, DEFAULT_DISABLE_HW_ACCELERATION);
-		} finally {
-			attrs.recycle();
-		}
+		SwipeStackAttributes attributes = SwipeStackAttributes.obtain(getContext(), attributeSet);
+		mAllowedSwipeDirections = attributes.allowedSwipeDirections;
+		mAnimationDuration = attributes.animationDuration;
+		mNumberOfStackedViews = attributes.stackSize;
+		mViewSpacing = attributes.stackSpacing;
+		mViewRotation = attributes.stackRotation;
+		mSwipeRotation = attributes.swipeRotation;
+		mSwipeOpacity = attributes.swipeOpacity;
+		mScaleFactor = attributes.scaleFactor;
+		mDisableHwAcceleration = attributes.disableHwAcceleration;
+		mPrefetchDepth = attributes.prefetchDepth;
+		mLayerStrategy = attributes.layerStrategy;
+		mFlingMinVelocity = attributes.flingMinVelocity;
+		mFlingMinDistance = attributes.flingMinDistance;
+		mCoalesceTouchEvents = attributes.coalesceTouchEvents;
+		mSnapshotBackgroundCards = attributes.snapshotBackgroundCards;
+		mSnapshotScale = attributes.snapshotScale;
+		mOcclusionCulling = attributes.occlusionCulling;
+		mUndoDepth = attributes.undoDepth;
+		mSpringAnimation = attributes.springAnimation;
+		mSpringStiffness = attributes.springStiffness;
+		mSpringDamping = attributes.springDamping;
+		if (attributes.adaptiveQuality) mQualityTierTracker = new QualityTierTracker();
 	}
 
 	private void initialize() {
-		mRandom = new Random();
-
 		setClipToPadding(false);
 		setClipChildren(false);
 
+		if (mSnapshotBackgroundCards) createSnapshotPool();
+
+		mStackAnimator = new StackAnimator(this);
+		mStackAnimator.setSpring(mSpringAnimation, mSpringStiffness, mSpringDamping);
 		mSwipeHelper = new SwipeHelper(this);
 		mSwipeHelper.setAnimationDuration(mAnimationDuration);
 		mSwipeHelper.setRotation(mSwipeRotation);
 		mSwipeHelper.setOpacityEnd(mSwipeOpacity);
+		mSwipeHelper.setFlingMinVelocity(mFlingMinVelocity);
+		mSwipeHelper.setFlingMinDistance(mFlingMinDistance);
+		mSwipeHelper.setCoalesceMoves(mCoalesceTouchEvents);
 
-		mDataObserver = new DataSetObserver() {
-			@Override public void onChanged() {
-				super.onChanged();
-				if (getChildCount() < mNumberOfStackedViews) {
-					invalidate();
-					requestLayout();
-				}
-			}
-		};
+		mConfiguredStackSize = mNumberOfStackedViews;
+		updateMetricsRecorder();
 	}
 
 	@Override public Parcelable onSaveInstanceState() {
@@ -136,6 +279,7 @@ public class SwipeStack extends ViewGroup {
 			Bundle bundle = (Bundle) state;
 			mCurrentViewIndex = bundle.getInt(KEY_CURRENT_INDEX);
 			state = bundle.getParcelable(KEY_SUPER_STATE);
+			discardPrefetchedViews();
 		}
 
 		super.onRestoreInstanceState(state);
@@ -145,354 +289,1898 @@ public class SwipeStack extends ViewGroup {
 
 		if (mAdapter == null || mAdapter.isEmpty()) {
 			mCurrentViewIndex = 0;
-			removeAllViewsInLayout();
+			recycleAllViews();
+			discardPrefetchedViews();
+			endPendingGesture();
 			return;
 		}
-		boolean addViews = false;
+		int newViewCount = 0;
 		for (int x = getChildCount(); x < mNumberOfStackedViews && mCurrentViewIndex < mAdapter.getCount(); x++) {
 			addNextView();
-			addViews = true;
+			newViewCount++;
 		}
-		if (addViews) reorderItems();
+		if (newViewCount > 0 || changed) reorderItems(newViewCount, changed);
+		updateTranslationZ();
 		registerTopView();
+		captureSnapshots();
+		schedulePrefetch();
+		requestResources();
+		if (!mPendingSwipes.isEmpty()) post(mPendingSwipeRunnable);
+		endPendingGesture();
 
 		mIsFirstLayout = false;
 	}
 
-	private void addNextView() {
-		if (mCurrentViewIndex < mAdapter.getCount()) {
-			View bottomView = mAdapter.getView(mCurrentViewIndex, null, this);
-			bottomView.setTag(be.trikke.swipestack.R.id.new_view, true);
+	private void endPendingGesture() {
+		if (!mGestureEndPending) return;
+		mGestureEndPending = false;
+		if (mMetricsRecorder != null) mMetricsRecorder.onGestureEnd();
+	}
 
-			if (!mDisableHwAcceleration) {
-				bottomView.setLayerType(LAYER_TYPE_HARDWARE, null);
+	/**
+	 * Creates the observers of the adapter once the first adapter is set.
+	 */
+	private void createObservers() {
+		mDataObserver = new DataSetObserver() {
+			@Override public void onChanged() {
+				super.onChanged();
+				discardPrefetchedViews();
+				cancelResourceRequests();
+				clearDismissedCards();
+				if (mAdapter.hasStableIds()) rebindStableItems();
+				if (getChildCount() < mNumberOfStackedViews) {
+					invalidate();
+					requestLayout();
+				}
+			}
+		};
+
+		mItemObserver = new SwipeStackAdapter.ItemObserver() {
+			@Override public void onItemRangeChanged(int positionStart, int itemCount) {
+				if (positionStart < getCurrentPosition()) clearDismissedCards();
+				int positionEnd = positionStart + itemCount;
+				for (int position = Math.max(positionStart, getCurrentPosition()); position < Math.min(positionEnd, mCurrentViewIndex); position++) {
+					rebindView(mCurrentViewIndex - 1 - position, position);
+				}
+				if (positionEnd > mCurrentViewIndex && positionStart < mCurrentViewIndex + mPrefetchedViews.size()) {
+					discardPrefetchedViews();
+					schedulePrefetch();
+				}
+			}
+
+			@Override public void onItemRangeInserted(int positionStart, int itemCount) {
+				shiftResourceRequests(positionStart, itemCount, false);
+				shiftDismissedCards(positionStart, itemCount, false);
+				if (positionStart < getCurrentPosition()) {
+					mCurrentViewIndex += itemCount;
+				} else if (positionStart < mCurrentViewIndex) {
+					truncateStack(positionStart);
+				} else {
+					onOffStackChanged(positionStart);
+				}
 			}
 
-			if (mViewRotation > 0) {
-				bottomView.setRotation(mRandom.nextInt(mViewRotation) - (mViewRotation / 2));
+			@Override public void onItemRangeRemoved(int positionStart, int itemCount) {
+				shiftResourceRequests(positionStart, itemCount, true);
+				shiftDismissedCards(positionStart, itemCount, true);
+				int positionEnd = positionStart + itemCount;
+				if (positionEnd <= getCurrentPosition()) {
+					mCurrentViewIndex -= itemCount;
+				} else if (positionStart < mCurrentViewIndex) {
+					truncateStack(Math.max(positionStart, getCurrentPosition()));
+					mCurrentViewIndex = positionStart;
+				} else {
+					onOffStackChanged(positionStart);
+				}
 			}
+		};
+	}
 
+	private void addNextView() {
+		if (mCurrentViewIndex < mAdapter.getCount()) {
+			long startTimeNanos = mMetricsRecorder != null ? System.nanoTime() : 0;
 			int width = getWidth() - (getPaddingLeft() + getPaddingRight());
 			int height = getHeight() - (getPaddingTop() + getPaddingBottom());
 
-			LayoutParams params = bottomView.getLayoutParams();
-			if (params == null) {
-				params = new LayoutParams(FrameLayout.LayoutParams.WRAP_CONTENT, FrameLayout.LayoutParams.WRAP_CONTENT);
+			View bottomView;
+			if (!mPrefetchedViews.isEmpty()) {
+				bottomView = mPrefetchedViews.remove(0);
+				if (mPrefetchedWidth != width || mPrefetchedHeight != height) {
+					measureView(bottomView, width, height);
+				}
+			} else {
+				bottomView = createView(mCurrentViewIndex, true);
+				measureView(bottomView, width, height);
 			}
 
-			int measureSpecWidth = MeasureSpec.AT_MOST;
-			int measureSpecHeight = MeasureSpec.AT_MOST;
-
-			if (params.width == LayoutParams.MATCH_PARENT) {
-				measureSpecWidth = MeasureSpec.EXACTLY;
+			if (!mDisableHwAcceleration && mLayerStrategy == LAYER_STRATEGY_PERMANENT) {
+				bottomView.setLayerType(LAYER_TYPE_HARDWARE, null);
 			}
 
-			if (params.height == LayoutParams.MATCH_PARENT) {
-				measureSpecHeight = MeasureSpec.EXACTLY;
+			if (mViewRotation > 0 && mQualityTier < QUALITY_TIER_NO_ROTATION) {
+				bottomView.setRotation(RANDOM.nextInt(mViewRotation) - (mViewRotation / 2));
 			}
 
-			bottomView.measure(measureSpecWidth | width, measureSpecHeight | height);
+			LayoutParams params = (LayoutParams) bottomView.getLayoutParams();
+			params.isNewView = true;
 			addViewInLayout(bottomView, 0, params, true);
 
 			mCurrentViewIndex++;
+
+			if (mMetricsRecorder != null) mMetricsRecorder.onViewCreated(System.nanoTime() - startTimeNanos);
 		}
 	}
 
-	private void registerTopView() {
-		int topViewIndex = getChildCount() - 1;
-		View topView = getChildAt(topViewIndex);
-		if (topView != null) {
+	private AsyncCardInflater getAsyncInflater() {
+		// Only asynchronous adapters need the inflater and its handler.
+		if (mAsyncInflater == null) mAsyncInflater = new AsyncCardInflater(this);
+		return mAsyncInflater;
+	}
 
-			int distanceToViewAbove = (topViewIndex * mViewSpacing) - (x * mViewSpacing);
-			int newPositionX = (getWidth() - topView.getMeasuredWidth()) / 2;
-			int newPositionY = distanceToViewAbove + getPaddingTop();
+	/**
+	 * Creates and binds the card for the given position.
+	 *
+	 * @param allowPlaceholder Whether a placeholder may be returned while the card
+	 * is inflated asynchronously. If not, null is returned in that case.
+	 */
+	private View createView(int position, boolean allowPlaceholder) {
+		int viewType = mAdapter.getItemViewType(position);
+		View convertView = null;
+		if (viewType != Adapter.IGNORE_ITEM_VIEW_TYPE) {
+			convertView = mCardPool.getRecycledView(viewType);
+		}
 
-			mSwipeHelper.unregisterObservedView();
-			mSwipeHelper.registerObservedView(topView, newPositionX, newPositionY);
+		View view;
+		if (mAdapter instanceof AsyncCardAdapter && viewType != Adapter.IGNORE_ITEM_VIEW_TYPE) {
+			AsyncCardAdapter asyncAdapter = (AsyncCardAdapter) mAdapter;
+			if (convertView == null) {
+				View placeholder = allowPlaceholder ? createPlaceholder(asyncAdapter) : null;
+				AsyncCardInflater asyncInflater = getAsyncInflater();
+				if (placeholder != null || asyncInflater.getPendingCount(viewType) == 0) {
+					asyncInflater.inflate(mBackgroundExecutor, asyncAdapter, viewType, placeholder);
+				}
+				if (placeholder != null && mAdapter.hasStableIds()) {
+					((LayoutParams) placeholder.getLayoutParams()).itemId = mAdapter.getItemId(position);
+				}
+				return placeholder;
+			}
+			asyncAdapter.onBindCard(convertView, position);
+			view = convertView;
+		} else {
+			view = mAdapter.getView(position, convertView, this);
+			if (convertView != null && convertView != view) {
+				mCardPool.putRecycledView(viewType, convertView);
+			}
 		}
+
+		LayoutParams params = obtainLayoutParams(view);
+		params.viewType = viewType;
+		if (mAdapter.hasStableIds()) params.itemId = mAdapter.getItemId(position);
+		return view;
 	}
 
-	private void reorderItems() {
-		for (int x = 0; x < getChildCount(); x++) {
-			View childView = getChildAt(x);
-			int topViewIndex = getChildCount() - 1;
+	private View createPlaceholder(AsyncCardAdapter adapter) {
+		View placeholder = adapter.onCreatePlaceholder(this);
+		if (placeholder == null) {
+			placeholder = new View(getContext());
+			placeholder.setLayoutParams(new LayoutParams(LayoutParams.MATCH_PARENT, LayoutParams.MATCH_PARENT));
+		}
+		LayoutParams params = obtainLayoutParams(placeholder);
+		params.viewType = Adapter.IGNORE_ITEM_VIEW_TYPE;
+		params.isPlaceholder = true;
+		return placeholder;
+	}
 
-			int distanceToViewAbove = (topViewIndex * mViewSpacing) - (x * mViewSpacing);
-			int newPositionX = (getWidth() - childView.getMeasuredWidth()) / 2;
-			int newPositionY = distanceToViewAbove + getPaddingTop();
+	private LayoutParams obtainLayoutParams(View view) {
+		ViewGroup.LayoutParams viewParams = view.getLayoutParams();
+		if (checkLayoutParams(viewParams)) {
+			return (LayoutParams) viewParams;
+		}
 
-			childView.layout(newPositionX, getPaddingTop(), newPositionX + childView.getMeasuredWidth(), getPaddingTop() + childView.getMeasuredHeight());
+		LayoutParams params = viewParams == null ? generateDefaultLayoutParams() : generateLayoutParams(viewParams);
+		view.setLayoutParams(params);
+		return params;
+	}
 
-			if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP) {
-				childView.setTranslationZ(x);
+	/**
+	 * Called on the main thread when an asynchronously inflated card is ready.
+	 */
+	void onCardInflated(AsyncCardAdapter adapter, int viewType, View placeholder, View card) {
+		if (adapter != mAdapter) return;
+
+		LayoutParams params = obtainLayoutParams(card);
+		params.viewType = viewType;
+
+		int index = placeholder != null ? indexOfChild(placeholder) : -1;
+		int position = mCurrentViewIndex - 1 - index;
+		if (index < 0 || mAdapter.getItemViewType(position) != viewType) {
+			mCardPool.putRecycledView(viewType, card);
+			if (index >= 0) {
+				// The data changed while inflating, request a card of the new type.
+				mAsyncInflater.inflate(mBackgroundExecutor, adapter, mAdapter.getItemViewType(position), placeholder);
 			}
+			schedulePrefetch();
+			return;
+		}
 
-			boolean isNewView = (boolean) childView.getTag(be.trikke.swipestack.R.id.new_view);
-			float scaleFactor = (float) Math.pow(mScaleFactor, getChildCount() - x);
-
-			if (x == topViewIndex) {
-				scaleFactor = 1;
-			}
+		adapter.onBindCard(card, position);
+		if (mAdapter.hasStableIds()) params.itemId = mAdapter.getItemId(position);
+		swapChild(index, card);
+	}
 
-			if (!mIsFirstLayout) {
+	/**
+	 * Binds the card at the given child index to the current data of its
+	 * position, reusing the card itself whenever the adapter allows it.
+	 */
+	private void rebindView(int index, int position) {
+		View childView = getChildAt(index);
+		LayoutParams params = (LayoutParams) childView.getLayoutParams();
+		if (params.isPlaceholder) {
+			// The card is bound to its current position once it has been inflated.
+			return;
+		}
 
-				if (isNewView) {
-					childView.setAlpha(0);
-					childView.setY(newPositionY);
-					childView.setScaleY(scaleFactor);
-					childView.setScaleX(scaleFactor);
-					childView.setTag(be.trikke.swipestack.R.id.new_view, false);
-					childView.setTag(R.id.startX, childView.getX());
-					childView.setTag(R.id.startY, childView.getY());
-					childView.setTag(R.id.startScaleX, childView.getScaleX());
-					childView.setTag(R.id.startScaleY, childView.getScaleY());
-				}
+		int viewType = mAdapter.getItemViewType(position);
+		View view;
+		if (viewType != params.viewType || viewType == Adapter.IGNORE_ITEM_VIEW_TYPE) {
+			view = createView(position, true);
+		} else if (mAdapter instanceof AsyncCardAdapter) {
+			((AsyncCardAdapter) mAdapter).onBindCard(childView, position);
+			view = childView;
+		} else {
+			view = mAdapter.getView(position, childView, this);
+			obtainLayoutParams(view).viewType = viewType;
+		}
 
-				//childView.animate().y(newPositionY).scaleX(scaleFactor).scaleY(scaleFactor).alpha(1).setDuration(100);
-			} else {
-				childView.setY(newPositionY);
-				childView.setScaleY(scaleFactor);
-				childView.setScaleX(scaleFactor);
-				childView.setTag(be.trikke.swipestack.R.id.new_view, false);
-				childView.setTag(R.id.startX, childView.getX());
-				childView.setTag(R.id.startY, childView.getY());
-				childView.setTag(R.id.startScaleX, childView.getScaleX());
-				childView.setTag(R.id.startScaleY, childView.getScaleY());
-			}
+		if (view == childView) {
+			if (mAdapter.hasStableIds()) params.itemId = mAdapter.getItemId(position);
+			measureView(childView, getWidth() - (getPaddingLeft() + getPaddingRight()), getHeight() - (getPaddingTop() + getPaddingBottom()));
+			layoutView(childView);
+			releaseSnapshot(childView);
+			if (index < getChildCount() - 1) captureSnapshot(childView);
+		} else {
+			if (mAdapter.hasStableIds()) obtainLayoutParams(view).itemId = mAdapter.getItemId(position);
+			swapChild(index, view);
+			recycleView(childView);
 		}
 	}
 
-	private void animateStack() {
-		for (int x = 0; x < getChildCount() - 1; x++) {
-			View childView = getChildAt(x);
-			int topViewIndex = getChildCount() - 2;
+	/**
+	 * Replaces the child at the given index with another card that takes over
+	 * its place in the stack. A top card that is being dragged or animated
+	 * moves back to its position, and a new top card starts the queued swipes.
+	 */
+	private void swapChild(int index, View view) {
+		View oldView = getChildAt(index);
+		boolean wasMoving = mStackAnimator.isAnimating(oldView) || mSwipeHelper.isDragging(oldView);
+		if (wasMoving) mStackAnimator.cancel();
+
+		LayoutParams params = (LayoutParams) view.getLayoutParams();
+		measureView(view, getWidth() - (getPaddingLeft() + getPaddingRight()), getHeight() - (getPaddingTop() + getPaddingBottom()));
+		params.copyStackState((LayoutParams) oldView.getLayoutParams());
+
+		removeViewInLayout(oldView);
+		addViewInLayout(view, index, params, true);
+
+		layoutView(view);
+		view.setTranslationX(oldView.getTranslationX());
+		view.setY(oldView.getY());
+		view.setScaleX(oldView.getScaleX());
+		view.setScaleY(oldView.getScaleY());
+		view.setAlpha(oldView.getAlpha());
+		view.setRotation(oldView.getRotation());
+		if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP) {
+			view.setTranslationZ(oldView.getTranslationZ());
+		}
+		if (!mDisableHwAcceleration && (mLayerStrategy == LAYER_STRATEGY_PERMANENT || oldView.getLayerType() == LAYER_TYPE_HARDWARE)) {
+			view.setLayerType(LAYER_TYPE_HARDWARE, null);
+		}
+
+		if (index == getChildCount() - 1) {
+			registerTopView();
+			if (wasMoving) mSwipeHelper.resetTopViewToPosition();
+			// Swipes wait for a top card that isn't a placeholder, and swapping doesn't request a layout.
+			if (!mPendingSwipes.isEmpty()) post(mPendingSwipeRunnable);
+		} else {
+			captureSnapshot(view);
+		}
+		invalidate();
+	}
 
-			int distanceToViewAbove = (topViewIndex * mViewSpacing) - (x * mViewSpacing);
-			int newPositionX = (getWidth() - childView.getMeasuredWidth()) / 2;
-			int newPositionY = distanceToViewAbove + getPaddingTop();
+	private void layoutView(View view) {
+		int left = (getWidth() - view.getMeasuredWidth()) / 2;
+		view.layout(left, getPaddingTop(), left + view.getMeasuredWidth(), getPaddingTop() + view.getMeasuredHeight());
+	}
 
-			float scaleFactor = (float) Math.pow(mScaleFactor, getChildCount() - 2 - x);
+	/**
+	 * Recycles the cards of the given adapter position and all positions after
+	 * it, so they are added again with the current data on the next layout.
+	 */
+	private void truncateStack(int position) {
+		int topViewIndex = getChildCount() - 1;
+		int lastViewIndex = Math.min(mCurrentViewIndex - 1 - position, topViewIndex);
+		if (lastViewIndex == topViewIndex) {
+			mStackAnimator.cancel();
+			endCardLayers();
+			mSwipeHelper.unregisterObservedView();
+		}
 
-			childView.animate().y(newPositionY).x(newPositionX).scaleX(scaleFactor).scaleY(scaleFactor).alpha(1).setDuration(100);
+		for (int x = lastViewIndex; x >= 0; x--) {
+			View childView = getChildAt(x);
+			removeViewInLayout(childView);
+			recycleView(childView);
 		}
+		mCurrentViewIndex = position;
+		discardPrefetchedViews();
+		invalidate();
+		requestLayout();
 	}
 
-	private void rememberPositions() {
-		for (int x = 0; x < getChildCount(); x++) {
-			View childView = getChildAt(x);
-			childView.setTag(R.id.startX, childView.getX());
-			childView.setTag(R.id.startY, childView.getY());
-			childView.setTag(R.id.startScaleX, childView.getScaleX());
-			childView.setTag(R.id.startScaleY, childView.getScaleY());
+	/**
+	 * Handles an insertion or removal after the last card on the stack, which
+	 * only affects prefetched cards and whether the stack can be filled up.
+	 */
+	private void onOffStackChanged(int positionStart) {
+		if (positionStart < mCurrentViewIndex + mPrefetchedViews.size()) {
+			discardPrefetchedViews();
+		}
+		if (getChildCount() < mNumberOfStackedViews) {
+			requestLayout();
+		} else {
+			schedulePrefetch();
 		}
 	}
 
-	private void animateStackOnProgress(float progress, boolean useAnimation) {
-		progress = Math.abs(progress);
-		for (int x = 0; x < getChildCount(); x++) {
-			int topViewIndex = getChildCount() - 1;
-			if (x != topViewIndex) {
-				View childView = getChildAt(x);
-				View nextView = getChildAt(x + 1);
-				float startPositionY = (float) childView.getTag(R.id.startY);
-				float nextPositionY = (float) nextView.getTag(R.id.startY);
-
-				float startScaleX = (float) childView.getTag(R.id.startScaleX);
-				float nextScaleX = (float) nextView.getTag(R.id.startScaleX);
-
-				float startScaleY = (float) childView.getTag(R.id.startScaleY);
-				float nextScaleY = (float) nextView.getTag(R.id.startScaleY);
-
-				float diffPositionY = (startPositionY - nextPositionY);
-				float diffScaleX = (startScaleX - nextScaleX);
-				float diffScaleY = (startScaleY - nextScaleY);
-
-				float newPositionY = (float) (startPositionY - Math.ceil(diffPositionY * progress));
-				float newScaleX = startScaleX - (diffScaleX * progress);
-				float newScaleY = startScaleY - (diffScaleY * progress);
-
-				if (useAnimation) {
-					childView.animate().cancel();
-					if (x == 0) {
-						childView.animate().alpha(progress).y(newPositionY).scaleX(newScaleX).scaleY(newScaleY).setDuration(mAnimationDuration);
-					} else {
-						childView.animate().y(newPositionY).scaleX(newScaleX).scaleY(newScaleY).setDuration(mAnimationDuration);
-					}
-				} else {
-					childView.setY(newPositionY);
-					childView.setScaleX(newScaleX);
-					childView.setScaleY(newScaleY);
-					if (x == 0) childView.setAlpha(progress);
-				}
+	/**
+	 * Rebinds the visible cards whose item id did not change after a coarse
+	 * data set change and rebuilds the stack from the first card that did.
+	 */
+	private void rebindStableItems() {
+		int position = getCurrentPosition();
+		for (int x = getChildCount() - 1; x >= 0; x--, position++) {
+			LayoutParams params = (LayoutParams) getChildAt(x).getLayoutParams();
+			if (position >= mAdapter.getCount() || mAdapter.getItemId(position) != params.itemId) {
+				truncateStack(position);
+				return;
 			}
+			rebindView(x, position);
 		}
 	}
 
-	public void continueOnSwipe() {
-		removeTopView();
+	private void measureView(View view, int width, int height) {
+		LayoutParams params = (LayoutParams) view.getLayoutParams();
+		int measureSpecWidth = MeasureSpec.AT_MOST;
+		int measureSpecHeight = MeasureSpec.AT_MOST;
+
+		if (params.width == LayoutParams.MATCH_PARENT) {
+			measureSpecWidth = MeasureSpec.EXACTLY;
+		}
+
+		if (params.height == LayoutParams.MATCH_PARENT) {
+			measureSpecHeight = MeasureSpec.EXACTLY;
+		}
+
+		view.measure(measureSpecWidth | width, measureSpecHeight | height);
 	}
 
-	public void resetSwipe() {
-		mSwipeHelper.resetTopViewToPosition();
-		animateStackOnProgress(0f, false);
+	private boolean needsPrefetch() {
+		return mAdapter != null && getWidth() > 0 && mPrefetchedViews.size() < mPrefetchDepth
+				&& mCurrentViewIndex + mPrefetchedViews.size() < mAdapter.getCount();
 	}
 
-	public void removeTopCard() {
-		rememberPositions();
-		animateStack();
-		removeTopView();
+	private void schedulePrefetch() {
+		if (mPrefetchScheduled || !needsPrefetch()) return;
+		mPrefetchScheduled = true;
+		Looper.myQueue().addIdleHandler(mPrefetchIdleHandler);
 	}
 
-	private void removeTopView() {
-		int topViewIndex = getChildCount() - 1;
-		View topView = getChildAt(topViewIndex);
-		if (topView != null) {
-			removeView(topView);
+	/**
+	 * Creates, binds and measures the card for the next position that is not
+	 * on the stack yet, so adding it later only needs to attach it.
+	 *
+	 * @return Whether more cards should be prefetched.
+	 */
+	private boolean prefetchNextView() {
+		if (!needsPrefetch()) return false;
+
+		int width = getWidth() - (getPaddingLeft() + getPaddingRight());
+		int height = getHeight() - (getPaddingTop() + getPaddingBottom());
+		if (mPrefetchedWidth != width || mPrefetchedHeight != height) {
+			discardPrefetchedViews();
+			mPrefetchedWidth = width;
+			mPrefetchedHeight = height;
 		}
 
-		if (getChildCount() == 0) {
-			if (mListener != null) mListener.onStackEmpty();
+		View view = createView(mCurrentViewIndex + mPrefetchedViews.size(), false);
+		if (view == null) {
+			// Continues once the card has been inflated in the background.
+			return false;
 		}
+		measureView(view, width, height);
+		mPrefetchedViews.add(view);
+		return needsPrefetch();
 	}
 
-	@Override protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
-		int width = MeasureSpec.getSize(widthMeasureSpec);
-		int height = MeasureSpec.getSize(heightMeasureSpec);
-		setMeasuredDimension(width, height);
+	private void discardPrefetchedViews() {
+		for (int x = mPrefetchedViews.size() - 1; x >= 0; x--) {
+			recycleView(mPrefetchedViews.get(x));
+		}
+		mPrefetchedViews.clear();
 	}
 
-	public void onSwipeStart() {
-		rememberPositions();
-		if (mProgressListener != null) mProgressListener.onSwipeStart(getCurrentPosition());
-	}
+	private void registerTopView() {
+		int topViewIndex = getChildCount() - 1;
+		View topView = getChildAt(topViewIndex);
+		if (topView != null) {
+			// The top card is always drawn as a view.
+			releaseSnapshot(topView);
 
-	public void onSwipeProgress(float progress) {
-		if (mProgressListener != null) mProgressListener.onSwipeProgress(getCurrentPosition(), progress);
-		animateStackOnProgress(progress, false);
-	}
+			int newPositionX = (getWidth() - topView.getMeasuredWidth()) / 2;
+			int newPositionY = getPaddingTop();
+			if (topView == mSwipeHelper.getObservedView() && newPositionX == mSwipeHelper.getInitialX()
+					&& newPositionY == mSwipeHelper.getInitialY()) {
+				return;
+			}
 
-	public void onSwipeEnd(boolean swipeFullfilled) {
-		if (mProgressListener != null) mProgressListener.onSwipeEnd(getCurrentPosition());
-		animateStackOnProgress(swipeFullfilled ? 1f : 0f, true);
+			mSwipeHelper.unregisterObservedView();
+			if (!((LayoutParams) topView.getLayoutParams()).isPlaceholder) {
+				mSwipeHelper.registerObservedView(topView, newPositionX, newPositionY);
+			}
+		}
 	}
 
-	public void onViewSwipedToLeft() {
-		boolean blockRemovalTopView = false;
-		if (mListener != null) blockRemovalTopView = mListener.onViewSwipedToLeft(getCurrentPosition());
-		if (!blockRemovalTopView) removeTopView();
+	/**
+	 * Positions the cards that were just added at the bottom of the stack. The
+	 * cards above them keep their layout unless the size of the stack changed.
+	 */
+	private void reorderItems(int newViewCount, boolean layoutAll) {
+		int topViewIndex = getChildCount() - 1;
+		int lastViewIndex = layoutAll ? topViewIndex : newViewCount - 1;
+		for (int x = 0; x <= lastViewIndex; x++) {
+			View childView = getChildAt(x);
+			layoutView(childView);
+
+			LayoutParams params = (LayoutParams) childView.getLayoutParams();
+			if (!params.isNewView) continue;
+
+			int newPositionY = getRestY(x);
+			float scaleFactor = getRestScale(x);
+
+			if (!mIsFirstLayout) {
+				// Only a new card at the bottom fades in when the stack moves up.
+				childView.setAlpha(x == 0 && x != topViewIndex ? 0 : 1);
+			}
+			childView.setY(newPositionY);
+			childView.setScaleY(scaleFactor);
+			childView.setScaleX(scaleFactor);
+			params.isNewView = false;
+			rememberPosition(childView);
+		}
 	}
 
-	public void onViewSwipedToRight() {
-		boolean blockRemovalTopView = false;
-		if (mListener != null) blockRemovalTopView = mListener.onViewSwipedToRight(getCurrentPosition());
-		if (!blockRemovalTopView) removeTopView();
+	private int getRestY(int index) {
+		int distanceToViewAbove = (getChildCount() - 1 - index) * mViewSpacing;
+		return distanceToViewAbove + getPaddingTop();
 	}
 
-	public void onViewTapped() {
-		mListener.onViewTapped(getCurrentPosition());
+	private float getRestScale(int index) {
+		return index == getChildCount() - 1 ? 1 : (float) Math.pow(mScaleFactor, getChildCount() - index);
 	}
 
 	/**
-	 * Returns the current adapter position.
-	 *
-	 * @return The current position.
+	 * Gives every place on the stack a fixed depth counted from the top, so
+	 * the top card casts the same shadow no matter how many cards are below
+	 * it. Cards that keep their place keep their depth.
 	 */
-	public int getCurrentPosition() {
-		return mCurrentViewIndex - getChildCount();
+	private void updateTranslationZ() {
+		if (Build.VERSION.SDK_INT < Build.VERSION_CODES.LOLLIPOP) return;
+
+		int topViewIndex = getChildCount() - 1;
+		for (int x = 0; x <= topViewIndex; x++) {
+			getChildAt(x).setTranslationZ(Math.max(mConfiguredStackSize - 1 - (topViewIndex - x), 0));
+		}
 	}
 
-	/**
-	 * Returns the adapter currently in use in this SwipeStack.
-	 *
-	 * @return The adapter currently used to display data in this SwipeStack.
-	 */
-	public Adapter getAdapter() {
-		return mAdapter;
+	private void captureSnapshots() {
+		if (!mSnapshotBackgroundCards) return;
+		for (int x = getChildCount() - 2; x >= 0; x--) {
+			captureSnapshot(getChildAt(x));
+		}
 	}
 
 	/**
-	 * Sets the data behind this SwipeView.
-	 *
-	 * @param adapter The Adapter which is responsible for maintaining the
-	 * data backing this list and for producing a view to represent an
-	 * item in that data set.
-	 * @see #getAdapter()
+	 * Renders a background card into a pooled bitmap that is drawn instead of
+	 * the card, unless the snapshot does not fit the budget.
 	 */
-	public void setAdapter(Adapter adapter) {
-		if (mAdapter != null) mAdapter.unregisterDataSetObserver(mDataObserver);
-		mAdapter = adapter;
-		mAdapter.registerDataSetObserver(mDataObserver);
+	private void captureSnapshot(View view) {
+		if (!mSnapshotBackgroundCards) return;
+		LayoutParams params = (LayoutParams) view.getLayoutParams();
+		if (params.snapshot != null || params.isPlaceholder) return;
+
+		int width = Math.round(view.getWidth() * mSnapshotScale);
+		int height = Math.round(view.getHeight() * mSnapshotScale);
+		if (width <= 0 || height <= 0) return;
+
+		Bitmap snapshot = mSnapshotPool.obtain(width, height);
+		if (snapshot == null) return;
+
+		mSnapshotCanvas.setBitmap(snapshot);
+		int saveCount = mSnapshotCanvas.save();
+		mSnapshotCanvas.scale(width / (float) view.getWidth(), height / (float) view.getHeight());
+		view.draw(mSnapshotCanvas);
+		mSnapshotCanvas.restoreToCount(saveCount);
+		mSnapshotCanvas.setBitmap(null);
+		params.snapshot = snapshot;
 	}
 
-	/**
-	 * Returns the allowed swipe directions.
-	 *
-	 * @return The currently allowed swipe directions.
-	 */
-	public int getAllowedSwipeDirections() {
-		return mAllowedSwipeDirections;
+	private void releaseSnapshot(View view) {
+		LayoutParams params = (LayoutParams) view.getLayoutParams();
+		if (params.snapshot == null) return;
+		mSnapshotPool.release(params.snapshot);
+		params.snapshot = null;
 	}
 
-	/**
-	 * Sets the allowed swipe directions.
-	 *
-	 * @param directions One of {@link #SWIPE_DIRECTION_BOTH},
-	 * {@link #SWIPE_DIRECTION_ONLY_LEFT}, or {@link #SWIPE_DIRECTION_ONLY_RIGHT}.
-	 */
-	public void setAllowedSwipeDirections(int directions) {
-		mAllowedSwipeDirections = directions;
+	private void releaseSnapshots() {
+		for (int x = 0; x < getChildCount(); x++) {
+			releaseSnapshot(getChildAt(x));
+		}
 	}
 
-	/**
-	 * Register a callback to be invoked when the user has swiped the top view
-	 * left / right or when the stack gets empty.
-	 *
-	 * @param listener The callback that will run
-	 */
-	public void setListener(@Nullable SwipeStackListener listener) {
-		mListener = listener;
+	@Override protected boolean drawChild(Canvas canvas, View child, long drawingTime) {
+		int saveCount = -1;
+		if (mOcclusionCulling && !mStackAnimator.isRunning() && !mSwipeHelper.isDragging(getTopView())) {
+			int index = indexOfChild(child);
+			if (index >= 0 && index < getChildCount() - 1) {
+				View viewAbove = getChildAt(index + 1);
+				// A placeholder is empty until its content arrives and hides nothing.
+				if (!((LayoutParams) viewAbove.getLayoutParams()).isPlaceholder && viewAbove.getAlpha() >= 1 && getDrawnBounds(viewAbove, mOccluderBounds) && getDrawnBounds(child, mChildBounds)) {
+					if (mOccluderBounds.contains(mChildBounds)) return false;
+					saveCount = clipToVisibleStrip(canvas);
+				}
+			}
+		}
+
+		boolean more = drawCard(canvas, child, drawingTime);
+		if (saveCount >= 0) canvas.restoreToCount(saveCount);
+		return more;
 	}
 
 	/**
-	 * Register a callback to be invoked when the user starts / stops interacting
-	 * with the top view of the stack.
+	 * Computes the bounds a card is drawn at, as long as they are an upright
+	 * rectangle.
 	 *
-	 * @param listener The callback that will run
+	 * @return false if the card is not visible or rotated.
 	 */
-	public void setSwipeProgressListener(@Nullable SwipeProgressListener listener) {
-		mProgressListener = listener;
+	private static boolean getDrawnBounds(View view, RectF bounds) {
+		if (view.getVisibility() != VISIBLE || view.getRotation() != 0) return false;
+		bounds.set(0, 0, view.getWidth(), view.getHeight());
+		view.getMatrix().mapRect(bounds);
+		bounds.offset(view.getLeft(), view.getTop());
+		return true;
 	}
 
 	/**
-	 * Get the view from the top of the stack.
+	 * Clips the canvas to the part of the child bounds that is not covered by
+	 * the card above, if that card covers the full width of the child.
 	 *
-	 * @return The view if the stack is not empty or null otherwise.
+	 * @return The save count to restore or -1 if the canvas was not clipped.
 	 */
-	public View getTopView() {
-		int topViewIndex = getChildCount() - 1;
-		return getChildAt(topViewIndex);
-	}
+	private int clipToVisibleStrip(Canvas canvas) {
+		if (mOccluderBounds.left > mChildBounds.left || mOccluderBounds.right < mChildBounds.right) return -1;
+
+		float top = mChildBounds.top;
+		float bottom = mChildBounds.bottom;
+		if (mOccluderBounds.top <= top && mOccluderBounds.bottom > top) {
+			top = mOccluderBounds.bottom;
+		} else if (mOccluderBounds.bottom >= bottom && mOccluderBounds.top < bottom) {
+			bottom = mOccluderBounds.top;
+		} else {
+			return -1;
+		}
+
+		int saveCount = canvas.save();
+		canvas.clipRect(mChildBounds.left, top, mChildBounds.right, bottom);
+		return saveCount;
+	}
+
+	private boolean drawCard(Canvas canvas, View child, long drawingTime) {
+		Bitmap snapshot = ((LayoutParams) child.getLayoutParams()).snapshot;
+		if (snapshot == null || child.getVisibility() != VISIBLE) {
+			return super.drawChild(canvas, child, drawingTime);
+		}
+
+		int saveCount = canvas.save();
+		canvas.translate(child.getLeft(), child.getTop());
+		canvas.concat(child.getMatrix());
+		canvas.scale(child.getWidth() / (float) snapshot.getWidth(), child.getHeight() / (float) snapshot.getHeight());
+		mSnapshotPaint.setAlpha(Math.round(child.getAlpha() * 255));
+		canvas.drawBitmap(snapshot, 0, 0, mSnapshotPaint);
+		canvas.restoreToCount(saveCount);
+		return false;
+	}
+
+	private void prepareStackAnimation() {
+		beginCardLayers();
+		if (mStackAnimator.isRunning()) {
+			// Continue from the positions remembered when the running animation began.
+			mStackAnimator.cancel();
+		} else {
+			rememberPositions();
+		}
+	}
+
+	private void rememberPositions() {
+		int topViewIndex = getChildCount() - 1;
+		for (int x = topViewIndex; x >= 0; x--) {
+			LayoutParams params = rememberPosition(getChildAt(x));
+			if (x != topViewIndex) {
+				// Target the resting place above rather than the card there, which
+				// may still be moving up after a card was promoted.
+				float scale = getRestScale(x + 1);
+				params.targetY = getRestY(x + 1);
+				params.targetScaleX = scale;
+				params.targetScaleY = scale;
+				params.followsStack = true;
+				params.fadesIn = x == 0;
+			}
+		}
+		mStackProgress = 0;
+	}
+
+	private static LayoutParams rememberPosition(View view) {
+		LayoutParams params = (LayoutParams) view.getLayoutParams();
+		params.startX = view.getX();
+		params.startY = view.getY();
+		params.startScaleX = view.getScaleX();
+		params.startScaleY = view.getScaleY();
+		params.startAlpha = view.getAlpha();
+		params.targetY = params.startY;
+		params.targetScaleX = params.startScaleX;
+		params.targetScaleY = params.startScaleY;
+		params.followsStack = false;
+		params.fadesIn = false;
+		return params;
+	}
+
+	/**
+	 * Moves every card that follows the stack from its remembered start to the
+	 * position of the card above it.
+	 *
+	 * @param progress 0 for the start positions, 1 for the positions of the cards above.
+	 */
+	void applyStackProgress(float progress) {
+		mStackProgress = progress;
+		// Without background card animation the stack only moves once it arrived.
+		if (mQualityTier >= QUALITY_TIER_STATIC_STACK && progress > 0 && progress < 1) return;
+		for (int x = 0; x < getChildCount(); x++) {
+			View childView = getChildAt(x);
+			LayoutParams params = (LayoutParams) childView.getLayoutParams();
+			if (!params.followsStack) continue;
+
+			float diffPositionY = (params.startY - params.targetY);
+			float diffScaleX = (params.startScaleX - params.targetScaleX);
+			float diffScaleY = (params.startScaleY - params.targetScaleY);
+
+			childView.setY((float) (params.startY - Math.ceil(diffPositionY * progress)));
+			childView.setScaleX(params.startScaleX - (diffScaleX * progress));
+			childView.setScaleY(params.startScaleY - (diffScaleY * progress));
+			if (params.fadesIn) childView.setAlpha(params.startAlpha + (1 - params.startAlpha) * progress);
+		}
+	}
+
+	float getStackProgress() {
+		return mStackProgress;
+	}
+
+	/**
+	 * Gives the moving cards a hardware layer for the duration of a drag or an
+	 * animation if a transient layer strategy is used.
+	 */
+	private void beginCardLayers() {
+		if (mDisableHwAcceleration || mLayerStrategy == LAYER_STRATEGY_PERMANENT) return;
+
+		int topViewIndex = getChildCount() - 1;
+		int firstViewIndex = mLayerStrategy == LAYER_STRATEGY_TOP_ONLY ? topViewIndex : 0;
+		for (int x = Math.max(firstViewIndex, 0); x <= topViewIndex; x++) {
+			View childView = getChildAt(x);
+			if (childView.getLayerType() != LAYER_TYPE_HARDWARE) {
+				childView.setLayerType(LAYER_TYPE_HARDWARE, null);
+			}
+		}
+		mCardLayersActive = true;
+	}
+
+	private void endCardLayers() {
+		if (!mCardLayersActive) return;
+		releaseCardLayers();
+	}
+
+	private void releaseCardLayers() {
+		mCardLayersActive = false;
+		for (int x = 0; x < getChildCount(); x++) {
+			View childView = getChildAt(x);
+			if (childView.getLayerType() != LAYER_TYPE_NONE) {
+				childView.setLayerType(LAYER_TYPE_NONE, null);
+			}
+		}
+	}
+
+	void onStackAnimationEnd() {
+		endCardLayers();
+		if (mMetricsRecorder != null && !mSwipeHelper.isDragging(getTopView())) {
+			// The layout after a dismissal adds the next card, which is part of the gesture.
+			if (isLayoutRequested()) {
+				mGestureEndPending = true;
+			} else {
+				mMetricsRecorder.onGestureEnd();
+			}
+		}
+		if (!mPendingSwipes.isEmpty()) post(mPendingSwipeRunnable);
+	}
+
+	/**
+	 * Called when a card that was detached from the stack animation reached
+	 * its target.
+	 */
+	void onCardFlightEnd(View view) {
+		// The listener kept the card on the stack. A card that was removed
+		// keeps its parent until its transition ends.
+		if (indexOfChild(view) >= 0) return;
+		endViewTransition(view);
+		for (DismissedCard dismissedCard : mDismissedCards) {
+			if (dismissedCard.view == view) return;
+		}
+		recycleView(view);
+	}
+
+	StackAnimator getStackAnimator() {
+		return mStackAnimator;
+	}
+
+	int getViewSpacing() {
+		return mViewSpacing;
+	}
+
+	public void continueOnSwipe() {
+		removeTopView();
+	}
+
+	public void resetSwipe() {
+		beginCardLayers();
+		mSwipeHelper.resetTopViewToPosition();
+	}
+
+	public void removeTopCard() {
+		prepareStackAnimation();
+		mStackAnimator.animateStack(1f, STACK_SHIFT_DURATION, null, null);
+		mExitDirection = EXIT_DIRECTION_NONE;
+		removeTopView();
+	}
+
+	private void removeTopView() {
+		int topViewIndex = getChildCount() - 1;
+		View topView = getChildAt(topViewIndex);
+		if (topView != null) {
+			int position = getCurrentPosition();
+			boolean flying = mStackAnimator.isFlying(topView);
+			// A flying card is drawn until its flight ends and is recycled then.
+			if (flying) startViewTransition(topView);
+			removeView(topView);
+			if (mUndoDepth > 0 && !((LayoutParams) topView.getLayoutParams()).isPlaceholder) {
+				addDismissedCard(topView, position);
+			} else if (!flying) {
+				recycleView(topView);
+			}
+		}
+
+		dispatchCurrentPositionChanged();
+
+		if (getChildCount() == 0) {
+			clearPendingSwipes();
+			if (mListener != null) mListener.onStackEmpty();
+		}
+	}
+
+	/**
+	 * Starts a programmatic swipe of the top card. If the top card is still
+	 * leaving the stack, it finishes its exit on its own and the next card is
+	 * swiped right away.
+	 *
+	 * @return false if the top card can't be swiped at the moment.
+	 */
+	private boolean swipeTopView(int direction, SwipeBatch batch) {
+		View topView = getTopView();
+		if (topView != null && mStackAnimator.isLeaving(topView)) {
+			mStackAnimator.detachTopView().onAnimationEnd();
+			// The listener kept the card on the stack.
+			if (getTopView() == topView) return false;
+			mStackAnimator.cancel();
+			registerTopView();
+			topView = getTopView();
+		}
+		if (topView == null || topView != mSwipeHelper.getObservedView() || !mSwipeHelper.isListeningForTouchEvents()) {
+			return false;
+		}
+
+		mTopViewBatch = batch;
+		mNextSwipeTime = SystemClock.uptimeMillis() + mSwipeStagger;
+		prepareStackAnimation();
+		if (direction == EXIT_DIRECTION_LEFT) {
+			mSwipeHelper.swipeViewToLeft();
+		} else {
+			mSwipeHelper.swipeViewToRight();
+		}
+		return true;
+	}
+
+	private void requestSwipe(int direction) {
+		if (getChildCount() == 0) return;
+		if (mPendingSwipes.isEmpty() && swipeTopView(direction, null)) return;
+		mPendingSwipes.addLast(new PendingSwipe(direction, null));
+	}
+
+	private void requestSwipes(int count, int direction, boolean silent) {
+		if (count <= 0 || getChildCount() == 0) return;
+		SwipeBatch batch = new SwipeBatch(count, direction, silent);
+		for (int x = 0; x < count; x++) {
+			mPendingSwipes.addLast(new PendingSwipe(direction, batch));
+		}
+		runPendingSwipes();
+	}
+
+	/**
+	 * Starts the queued swipes, at most one per stagger interval. A swipe that
+	 * can't start yet is retried after the next layout or animation end.
+	 */
+	private void runPendingSwipes() {
+		removeCallbacks(mPendingSwipeRunnable);
+		while (!mPendingSwipes.isEmpty()) {
+			long delay = mNextSwipeTime - SystemClock.uptimeMillis();
+			if (delay > 0) {
+				postDelayed(mPendingSwipeRunnable, delay);
+				return;
+			}
+			PendingSwipe pendingSwipe = mPendingSwipes.peekFirst();
+			if (!swipeTopView(pendingSwipe.direction, pendingSwipe.batch)) return;
+			mPendingSwipes.removeFirst();
+		}
+	}
+
+	private void clearPendingSwipes() {
+		removeCallbacks(mPendingSwipeRunnable);
+		while (!mPendingSwipes.isEmpty()) {
+			finishBatch(mPendingSwipes.removeFirst().batch);
+		}
+		finishBatch(mTopViewBatch);
+		mTopViewBatch = null;
+	}
+
+	/**
+	 * Dismisses the top card that was swiped as part of a batch. The listener
+	 * is only notified once for the whole batch, if it is a {@link BatchSwipeListener}.
+	 */
+	private void onBatchViewSwiped(SwipeBatch batch) {
+		int position = getCurrentPosition();
+		if (batch.swipedCount == 0) batch.positionStart = position;
+		batch.swipedCount++;
+		if (!batch.silent && mBatchListener == null && mListener != null) {
+			if (batch.direction == EXIT_DIRECTION_LEFT) {
+				mListener.onViewSwipedToLeft(position);
+			} else {
+				mListener.onViewSwipedToRight(position);
+			}
+		}
+		removeTopView();
+		if (batch.swipedCount == batch.count) finishBatch(batch);
+	}
+
+	private void finishBatch(SwipeBatch batch) {
+		if (batch == null || batch.finished || batch.swipedCount == 0) return;
+		batch.finished = true;
+		if (!batch.silent && mBatchListener != null) {
+			mBatchListener.onViewsSwiped(batch.positionStart, batch.swipedCount, batch.direction == EXIT_DIRECTION_RIGHT);
+		}
+	}
+
+	/**
+	 * Keeps a dismissed card as it is, so it can be brought back without
+	 * binding it again. The oldest card is recycled once the buffer is full.
+	 */
+	private void addDismissedCard(View view, int position) {
+		view.setOnTouchListener(null);
+		mDismissedCards.addLast(new DismissedCard(view, position, mExitDirection));
+		while (mDismissedCards.size() > mUndoDepth) {
+			recycleView(mDismissedCards.removeFirst().view);
+		}
+	}
+
+	/**
+	 * Takes the bottom card off the stack and keeps it as the next card to be
+	 * added again.
+	 */
+	private void returnBottomView() {
+		View bottomView = getChildAt(0);
+		removeViewInLayout(bottomView);
+		mCurrentViewIndex--;
+		if (((LayoutParams) bottomView.getLayoutParams()).isPlaceholder) {
+			discardPrefetchedViews();
+		} else {
+			releaseSnapshot(bottomView);
+			resetView(bottomView);
+			mPrefetchedViews.add(0, bottomView);
+		}
+	}
+
+	private void clearDismissedCards() {
+		while (!mDismissedCards.isEmpty()) {
+			recycleView(mDismissedCards.removeFirst().view);
+		}
+	}
+
+	/**
+	 * Moves the positions of the dismissed cards along with an insertion or
+	 * removal, and drops all of them if one of their items was removed.
+	 */
+	private void shiftDismissedCards(int positionStart, int itemCount, boolean removed) {
+		for (DismissedCard dismissedCard : mDismissedCards) {
+			if (removed && dismissedCard.position >= positionStart && dismissedCard.position < positionStart + itemCount) {
+				clearDismissedCards();
+				return;
+			}
+			if (dismissedCard.position >= positionStart) {
+				dismissedCard.position += removed ? -itemCount : itemCount;
+			}
+		}
+	}
+
+	/**
+	 * Brings back the card that was dismissed last. It flies back in from the
+	 * side it left to, while the cards underneath move down by one place. The
+	 * card is reused as it is, without binding it again.
+	 *
+	 * @return false if there is no card to bring back or the stack is moving.
+	 * @see #setUndoDepth(int)
+	 */
+	public boolean undoLastSwipe() {
+		DismissedCard dismissedCard = mDismissedCards.peekLast();
+		if (dismissedCard == null || mStackAnimator.isRunning() || mSwipeHelper.isDragging(getTopView())) return false;
+		if (dismissedCard.position != getCurrentPosition() - 1) {
+			// The data changed in a way the dismissed cards could not follow.
+			clearDismissedCards();
+			return false;
+		}
+		mDismissedCards.removeLast();
+
+		if (getChildCount() >= mNumberOfStackedViews) returnBottomView();
+
+		View view = dismissedCard.view;
+		mStackAnimator.cancelFlight(view);
+		// A card that left while it was still moving may be transitioning out.
+		endViewTransition(view);
+		LayoutParams params = (LayoutParams) view.getLayoutParams();
+		params.isNewView = false;
+		measureView(view, getWidth() - (getPaddingLeft() + getPaddingRight()), getHeight() - (getPaddingTop() + getPaddingBottom()));
+		addViewInLayout(view, -1, params, true);
+		layoutView(view);
+		updateTranslationZ();
+
+		// Start the cards underneath at their current place and move them to
+		// the place below by running the stack progress backwards.
+		int topViewIndex = getChildCount() - 1;
+		for (int x = 0; x < topViewIndex; x++) {
+			View childView = getChildAt(x);
+			LayoutParams childParams = (LayoutParams) childView.getLayoutParams();
+			float scale = getRestScale(x);
+			childParams.startX = childView.getX();
+			childParams.startY = getRestY(x);
+			childParams.startScaleX = scale;
+			childParams.startScaleY = scale;
+			childParams.targetY = childView.getY();
+			childParams.targetScaleX = childView.getScaleX();
+			childParams.targetScaleY = childView.getScaleY();
+			childParams.followsStack = true;
+			childParams.fadesIn = false;
+		}
+		rememberPosition(view);
+		mStackProgress = 1;
+
+		registerTopView();
+		captureSnapshots();
+		beginCardLayers();
+
+		if (dismissedCard.direction == EXIT_DIRECTION_NONE) {
+			view.setAlpha(0);
+		} else {
+			view.setX(mSwipeHelper.getInitialX() + dismissedCard.direction * getWidth());
+			view.setRotation(dismissedCard.direction * mSwipeRotation);
+		}
+		mStackAnimator.animateTopView(view, mSwipeHelper.getInitialX(), mSwipeHelper.getInitialY(), 0, 1, 0f, mAnimationDuration,
+				SwipeHelper.DEFAULT_RESET_INTERPOLATOR, null);
+
+		dispatchCurrentPositionChanged();
+		invalidate();
+		return true;
+	}
+
+	/**
+	 * Returns whether {@link #undoLastSwipe()} can bring back a card.
+	 *
+	 * @return true if a dismissed card is kept.
+	 */
+	public boolean canUndo() {
+		return !mDismissedCards.isEmpty();
+	}
+
+	private void dispatchCurrentPositionChanged() {
+		if (mAdapter instanceof SwipeStackAdapter) {
+			((SwipeStackAdapter) mAdapter).onCurrentPositionChanged(getCurrentPosition());
+		}
+		requestResources();
+	}
+
+	/**
+	 * Hands the positions after the stack that have not been requested yet to
+	 * the resource prefetcher and cancels the requests of swiped positions.
+	 */
+	private void requestResources() {
+		if (mResourcePrefetcher == null || mAdapter == null) return;
+
+		int currentPosition = getCurrentPosition();
+		for (int x = mResourceRequests.size() - 1; x >= 0; x--) {
+			if (mResourceRequests.keyAt(x) < currentPosition) {
+				mResourceRequests.valueAt(x).signal.cancel();
+				mResourceRequests.removeAt(x);
+			}
+		}
+
+		int end = Math.min(mCurrentViewIndex + mResourcePrefetchLookahead, mAdapter.getCount());
+		for (int position = Math.max(mRequestedResourceEnd, mCurrentViewIndex); position < end; position++) {
+			requestResource(position);
+		}
+		mRequestedResourceEnd = Math.max(mRequestedResourceEnd, end);
+	}
+
+	private void requestResource(int position) {
+		ResourceRequest request = new ResourceRequest(mResourcePrefetcher, mAdapter.getItem(position), position);
+		mResourceRequests.put(position, request);
+		try {
+			mBackgroundExecutor.execute(request);
+		} catch (RejectedExecutionException e) {
+			// Prefetching is best effort, the card loads its resources once it is bound.
+			mResourceRequests.remove(position);
+		}
+	}
+
+	/**
+	 * Moves the requests behind a changed range to their new positions, so a
+	 * change before the requested positions doesn't cancel them and requests
+	 * that haven't started yet load their item under its new position.
+	 * Requests of removed positions are cancelled.
+	 */
+	private void shiftResourceRequests(int positionStart, int itemCount, boolean removed) {
+		if (positionStart >= mRequestedResourceEnd) return;
+		if (!removed && (mResourceRequests.size() == 0 || positionStart > mResourceRequests.keyAt(0))) {
+			// The inserted positions lie between requested ones and would be skipped.
+			cancelResourceRequests();
+			return;
+		}
+
+		int positionEnd = positionStart + itemCount;
+		SparseArray<ResourceRequest> shiftedRequests = mShiftedResourceRequests;
+		for (int x = 0; x < mResourceRequests.size(); x++) {
+			int position = mResourceRequests.keyAt(x);
+			ResourceRequest request = mResourceRequests.valueAt(x);
+			if (removed && position >= positionStart && position < positionEnd) {
+				request.signal.cancel();
+				continue;
+			}
+			if (position >= positionStart) request.position = removed ? position - itemCount : position + itemCount;
+			shiftedRequests.append(request.position, request);
+		}
+		mResourceRequests.clear();
+		mShiftedResourceRequests = mResourceRequests;
+		mResourceRequests = shiftedRequests;
+
+		if (removed) {
+			mRequestedResourceEnd -= Math.min(positionEnd, mRequestedResourceEnd) - positionStart;
+		} else {
+			mRequestedResourceEnd += itemCount;
+		}
+	}
+
+	private void cancelResourceRequests() {
+		for (int x = 0; x < mResourceRequests.size(); x++) {
+			mResourceRequests.valueAt(x).signal.cancel();
+		}
+		mResourceRequests.clear();
+		mRequestedResourceEnd = 0;
+	}
+
+	private void recycleAllViews() {
+		mStackAnimator.cancel();
+		mStackAnimator.endFlights();
+		clearPendingSwipes();
+		for (int x = getChildCount() - 1; x >= 0; x--) {
+			View childView = getChildAt(x);
+			removeViewInLayout(childView);
+			recycleView(childView);
+		}
+	}
+
+	private void recycleView(View view) {
+		if (mStackAnimator.cancelFlight(view)) endViewTransition(view);
+		releaseSnapshot(view);
+		LayoutParams params = (LayoutParams) view.getLayoutParams();
+		if (params.viewType == Adapter.IGNORE_ITEM_VIEW_TYPE) return;
+
+		resetView(view);
+		mCardPool.putRecycledView(params.viewType, view);
+	}
+
+	private void resetView(View view) {
+		view.animate().setListener(null).cancel();
+		view.clearAnimation();
+		view.setOnTouchListener(null);
+		view.setTranslationX(0);
+		view.setTranslationY(0);
+		view.setRotation(0);
+		view.setScaleX(1);
+		view.setScaleY(1);
+		view.setAlpha(1);
+		if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP) {
+			view.setTranslationZ(0);
+		}
+		if (mLayerStrategy != LAYER_STRATEGY_PERMANENT && view.getLayerType() != LAYER_TYPE_NONE) {
+			view.setLayerType(LAYER_TYPE_NONE, null);
+		}
+	}
+
+	@Override protected void onAttachedToWindow() {
+		super.onAttachedToWindow();
+		getContext().registerComponentCallbacks(mTrimMemoryCallbacks);
+		registerTopView();
+		captureSnapshots();
+		if (mAdapter != null && getChildCount() == 0) requestLayout();
+	}
+
+	@Override protected void onDetachedFromWindow() {
+		super.onDetachedFromWindow();
+		getContext().unregisterComponentCallbacks(mTrimMemoryCallbacks);
+		if (mMetricsRecorder != null) mMetricsRecorder.cancel();
+		mGestureEndPending = false;
+		if (mPrefetchScheduled) {
+			Looper.myQueue().removeIdleHandler(mPrefetchIdleHandler);
+			mPrefetchScheduled = false;
+		}
+
+		// A card that is leaving the stack completes its exit and is reported,
+		// only drags and resets are moved back.
+		if (mStackAnimator.isLeaving(getTopView())) mStackAnimator.detachTopView().onAnimationEnd();
+		stopStackAnimation();
+		mStackAnimator.endFlights();
+		clearPendingSwipes();
+		cancelResourceRequests();
+		mSwipeHelper.unregisterObservedView();
+		if (mSharedCardPool) releaseCardsToPool();
+		trimMemory(ComponentCallbacks2.TRIM_MEMORY_COMPLETE, !mSharedCardPool);
+	}
+
+	/**
+	 * Recycles all cards of the stack into the pool, keeping the current
+	 * position so the stack can be filled again from there.
+	 */
+	private void releaseCardsToPool() {
+		mCurrentViewIndex = getCurrentPosition();
+		recycleAllViews();
+		discardPrefetchedViews();
+		clearDismissedCards();
+	}
+
+	/**
+	 * Moves a card that is being dragged or animated back to its position and
+	 * finishes a running stack animation without invoking its callbacks.
+	 */
+	private void stopStackAnimation() {
+		View topView = getTopView();
+		boolean topViewMoving = mStackAnimator.isAnimating(topView) || mSwipeHelper.isDragging(topView);
+		if (!topViewMoving && !mStackAnimator.isRunning()) return;
+
+		mStackAnimator.cancel();
+		if (topViewMoving) {
+			topView.setX(mSwipeHelper.getInitialX());
+			topView.setY(mSwipeHelper.getInitialY());
+			topView.setRotation(0);
+			topView.setAlpha(1);
+			applyStackProgress(0);
+		} else {
+			applyStackProgress(1);
+		}
+		endCardLayers();
+	}
+
+	/**
+	 * Releases cached cards and snapshots depending on how much memory the
+	 * system needs. This is called automatically while the SwipeStack is
+	 * attached to a window, and releases everything once it is detached,
+	 * except for a shared card pool. Dismissed cards kept for undo survive
+	 * the app being hidden and are only released when memory runs critically
+	 * low.
+	 *
+	 * @param level A trim level of {@link ComponentCallbacks2}.
+	 */
+	public void trimMemory(int level) {
+		trimMemory(level, true);
+	}
+
+	private void trimMemory(int level, boolean clearCardPool) {
+		if (level < ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW) return;
+
+		// Prefetched cards are dropped instead of being recycled into the pool.
+		mReleasedViewCount += mPrefetchedViews.size();
+		mPrefetchedViews.clear();
+
+		if (mSnapshotPool != null) {
+			if (level >= ComponentCallbacks2.TRIM_MEMORY_RUNNING_CRITICAL) releaseSnapshots();
+			int allocatedBytes = mSnapshotPool.getAllocatedBytes();
+			mSnapshotPool.trim(0);
+			mReleasedSnapshotBytes += allocatedBytes - mSnapshotPool.getAllocatedBytes();
+		}
+
+		// Hidden and background levels keep what the user can still come back to.
+		if (level == ComponentCallbacks2.TRIM_MEMORY_RUNNING_CRITICAL || level >= ComponentCallbacks2.TRIM_MEMORY_MODERATE) {
+			clearDismissedCards();
+			if (clearCardPool) {
+				mReleasedViewCount += mCardPool.getTotalRecycledViewCount();
+				mCardPool.clear();
+			}
+		}
+	}
+
+	/**
+	 * Returns the number of prefetched and recycled cards that were released
+	 * because of memory pressure or because the SwipeStack was detached.
+	 *
+	 * @return The number of released cards.
+	 */
+	public int getReleasedViewCount() {
+		return mReleasedViewCount;
+	}
+
+	/**
+	 * Returns the number of snapshot bytes that were released because of
+	 * memory pressure or because the SwipeStack was detached.
+	 *
+	 * @return The number of released bytes.
+	 */
+	public long getReleasedSnapshotBytes() {
+		return mReleasedSnapshotBytes;
+	}
+
+	@Override protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+		int width = MeasureSpec.getSize(widthMeasureSpec);
+		int height = MeasureSpec.getSize(heightMeasureSpec);
+		setMeasuredDimension(width, height);
+	}
+
+	@Override protected boolean checkLayoutParams(ViewGroup.LayoutParams p) {
+		return p instanceof LayoutParams;
+	}
+
+	@Override protected LayoutParams generateDefaultLayoutParams() {
+		return new LayoutParams(LayoutParams.WRAP_CONTENT, LayoutParams.WRAP_CONTENT);
+	}
+
+	@Override public LayoutParams generateLayoutParams(AttributeSet attrs) {
+		return new LayoutParams(getContext(), attrs);
+	}
+
+	@Override protected LayoutParams generateLayoutParams(ViewGroup.LayoutParams p) {
+		return new LayoutParams(p);
+	}
+
+	public void onSwipeStart() {
+		mGestureEndPending = false;
+		if (mMetricsRecorder != null) mMetricsRecorder.onGestureStart(getCurrentPosition());
+		prepareStackAnimation();
+		if (mProgressListener != null) mProgressListener.onSwipeStart(getCurrentPosition());
+	}
+
+	public void onSwipeProgress(float progress) {
+		if (mProgressListener != null) mProgressListener.onSwipeProgress(getCurrentPosition(), progress);
+		applyStackProgress(Math.abs(progress));
+	}
+
+	void onSwipeMove(long eventTime) {
+		if (mMetricsRecorder != null) mMetricsRecorder.onMove(eventTime);
+	}
+
+	public void onViewReleased(float velocityX) {
+		if (mVelocityListener != null) mVelocityListener.onViewReleased(getCurrentPosition(), velocityX);
+	}
+
+	public void onSwipeEnd(boolean swipeFullfilled) {
+		if (mProgressListener != null) mProgressListener.onSwipeEnd(getCurrentPosition());
+	}
+
+	public void onViewSwipedToLeft() {
+		mExitDirection = EXIT_DIRECTION_LEFT;
+		SwipeBatch batch = mTopViewBatch;
+		mTopViewBatch = null;
+		if (batch != null) {
+			onBatchViewSwiped(batch);
+			return;
+		}
+		boolean blockRemovalTopView = false;
+		if (mListener != null) blockRemovalTopView = mListener.onViewSwipedToLeft(getCurrentPosition());
+		if (!blockRemovalTopView) removeTopView();
+	}
+
+	public void onViewSwipedToRight() {
+		mExitDirection = EXIT_DIRECTION_RIGHT;
+		SwipeBatch batch = mTopViewBatch;
+		mTopViewBatch = null;
+		if (batch != null) {
+			onBatchViewSwiped(batch);
+			return;
+		}
+		boolean blockRemovalTopView = false;
+		if (mListener != null) blockRemovalTopView = mListener.onViewSwipedToRight(getCurrentPosition());
+		if (!blockRemovalTopView) removeTopView();
+	}
+
+	public void onViewTapped() {
+		mListener.onViewTapped(getCurrentPosition());
+	}
+
+	/**
+	 * Returns the current adapter position.
+	 *
+	 * @return The current position.
+	 */
+	public int getCurrentPosition() {
+		return mCurrentViewIndex - getChildCount();
+	}
+
+	/**
+	 * Returns the adapter currently in use in this SwipeStack.
+	 *
+	 * @return The adapter currently used to display data in this SwipeStack.
+	 */
+	public Adapter getAdapter() {
+		return mAdapter;
+	}
+
+	/**
+	 * Sets the data behind this SwipeView.
+	 *
+	 * @param adapter The Adapter which is responsible for maintaining the
+	 * data backing this list and for producing a view to represent an
+	 * item in that data set.
+	 * @see #getAdapter()
+	 */
+	public void setAdapter(Adapter adapter) {
+		if (mAdapter != null) {
+			mAdapter.unregisterDataSetObserver(mDataObserver);
+			if (mAdapter instanceof SwipeStackAdapter) {
+				((SwipeStackAdapter) mAdapter).unregisterItemObserver(mItemObserver);
+			}
+			discardPrefetchedViews();
+			cancelResourceRequests();
+			clearDismissedCards();
+			if (mAdapter != adapter && !mSharedCardPool) mCardPool.clear();
+		}
+		mAdapter = adapter;
+		if (mDataObserver == null) createObservers();
+		mAdapter.registerDataSetObserver(mDataObserver);
+		if (mAdapter instanceof SwipeStackAdapter) {
+			((SwipeStackAdapter) mAdapter).registerItemObserver(mItemObserver);
+		}
+		dispatchCurrentPositionChanged();
+	}
+
+	/**
+	 * Returns the pool dismissed cards are recycled into. The pool can be used
+	 * to configure the number of cards kept per view type and to read the
+	 * hit / miss counters.
+	 *
+	 * @return The recycled card pool of this SwipeStack.
+	 */
+	public RecycledCardPool getRecycledCardPool() {
+		return mCardPool;
+	}
+
+	/**
+	 * Sets the pool dismissed cards are recycled into. Several SwipeStacks can
+	 * share one pool, as long as their adapters use the same item view types
+	 * for the same kind of card. A SwipeStack using a shared pool hands its
+	 * cards to the pool when it is detached from its window, so stacks that
+	 * are attached later can reuse them, and fills up again once it is
+	 * attached.
+	 *
+	 * @param pool The pool to use, or null for a pool of this SwipeStack only.
+	 */
+	public void setRecycledCardPool(@Nullable RecycledCardPool pool) {
+		mSharedCardPool = pool != null;
+		if (pool == null) pool = new RecycledCardPool();
+		if (pool == mCardPool) return;
+		discardPrefetchedViews();
+		mCardPool = pool;
+	}
+
+	/**
+	 * Sets the executor used for background work such as inflating the cards
+	 * of an {@link AsyncCardAdapter}.
+	 *
+	 * @param executor The executor, by default {@link AsyncTask#THREAD_POOL_EXECUTOR}.
+	 */
+	public void setBackgroundExecutor(Executor executor) {
+		mBackgroundExecutor = executor;
+	}
+
+	/**
+	 * Returns the allowed swipe directions.
+	 *
+	 * @return The currently allowed swipe directions.
+	 */
+	public int getAllowedSwipeDirections() {
+		return mAllowedSwipeDirections;
+	}
+
+	/**
+	 * Sets the allowed swipe directions.
+	 *
+	 * @param directions One of {@link #SWIPE_DIRECTION_BOTH},
+	 * {@link #SWIPE_DIRECTION_ONLY_LEFT}, or {@link #SWIPE_DIRECTION_ONLY_RIGHT}.
+	 */
+	public void setAllowedSwipeDirections(int directions) {
+		mAllowedSwipeDirections = directions;
+	}
+
+	/**
+	 * Sets the minimum horizontal velocity a released card needs to be
+	 * dismissed without being dragged past the edge of the stack.
+	 *
+	 * @param pixelsPerSecond The minimum fling velocity in pixels per second.
+	 */
+	public void setFlingMinVelocity(float pixelsPerSecond) {
+		mFlingMinVelocity = pixelsPerSecond;
+		mSwipeHelper.setFlingMinVelocity(pixelsPerSecond);
+	}
+
+	/**
+	 * Sets the minimum horizontal distance a card has to be dragged before a
+	 * fling dismisses it.
+	 *
+	 * @param pixels The minimum fling distance in pixels.
+	 */
+	public void setFlingMinDistance(int pixels) {
+		mFlingMinDistance = pixels;
+		mSwipeHelper.setFlingMinDistance(pixels);
+	}
+
+	/**
+	 * Sets whether the move events of a drag are applied at most once per frame.
+	 * Only the latest position is applied then, while the release velocity is
+	 * still computed from every event including its historical samples.
+	 *
+	 * @param coalesce true to update the cards once per frame, false to update
+	 * them on every move event.
+	 */
+	public void setCoalesceTouchEvents(boolean coalesce) {
+		mCoalesceTouchEvents = coalesce;
+		mSwipeHelper.setCoalesceMoves(coalesce);
+	}
+
+	/**
+	 * Sets whether the cards underneath the top card are rendered once into a
+	 * bitmap that is drawn instead of the cards themselves. A card is drawn as
+	 * a view again as soon as it becomes the top card.
+	 *
+	 * @param enabled true to draw background cards from snapshots.
+	 * @see #invalidateCardSnapshots()
+	 */
+	public void setSnapshotBackgroundCards(boolean enabled) {
+		if (mSnapshotBackgroundCards == enabled) return;
+		mSnapshotBackgroundCards = enabled;
+		if (enabled) {
+			if (mSnapshotPool == null) createSnapshotPool();
+			captureSnapshots();
+		} else {
+			releaseSnapshots();
+			mSnapshotPool.trim(0);
+		}
+		invalidate();
+	}
+
+	/**
+	 * Sets the scale the snapshots of background cards are rendered at. Values
+	 * below 1 save memory at the cost of sharpness.
+	 *
+	 * @param scale The snapshot scale, between 0 and 1.
+	 */
+	public void setSnapshotScale(float scale) {
+		mSnapshotScale = scale;
+		invalidateCardSnapshots();
+	}
+
+	/**
+	 * Sets the number of bytes the snapshots of background cards may use. Cards
+	 * whose snapshot does not fit are drawn as views.
+	 *
+	 * @param bytes The snapshot budget in bytes, by default {@link #DEFAULT_SNAPSHOT_BUDGET}.
+	 */
+	public void setSnapshotBudget(int bytes) {
+		mSnapshotBudget = bytes;
+		if (mSnapshotPool != null) mSnapshotPool.setMaxBytes(bytes);
+	}
+
+	/**
+	 * Sets whether cards underneath the top card are only drawn where they
+	 * are not covered by the card above them. Cards must be opaque for this.
+	 * It only applies while the stack is at rest; while a card is dragged or
+	 * animated, every card is drawn fully.
+	 *
+	 * @param enabled true to skip drawing the covered parts of cards.
+	 */
+	public void setOcclusionCulling(boolean enabled) {
+		mOcclusionCulling = enabled;
+		invalidate();
+	}
+
+	/**
+	 * Renders the snapshots of the background cards again, for example after
+	 * their content has been changed outside of the adapter.
+	 */
+	public void invalidateCardSnapshots() {
+		if (!mSnapshotBackgroundCards) return;
+		releaseSnapshots();
+		captureSnapshots();
+		invalidate();
+	}
+
+	private void createSnapshotPool() {
+		mSnapshotPool = new CardSnapshotPool(mSnapshotBudget);
+		mSnapshotCanvas = new Canvas();
+		mSnapshotPaint = new Paint(Paint.FILTER_BITMAP_FLAG);
+	}
+
+	/**
+	 * Returns the strategy used to give cards a hardware layer.
+	 *
+	 * @return The current layer strategy.
+	 */
+	public int getLayerStrategy() {
+		return mLayerStrategy;
+	}
+
+	/**
+	 * Sets the strategy used to give cards a hardware layer. This has no effect
+	 * if hardware acceleration is disabled.
+	 *
+	 * @param strategy {@link #LAYER_STRATEGY_PERMANENT} to keep a layer on every card,
+	 * {@link #LAYER_STRATEGY_TRANSIENT} to only give the cards a layer while they move or
+	 * {@link #LAYER_STRATEGY_TOP_ONLY} to only give the top card a layer while it moves.
+	 */
+	public void setLayerStrategy(int strategy) {
+		if (mLayerStrategy == strategy) return;
+		releaseCardLayers();
+		mLayerStrategy = strategy;
+
+		if (!mDisableHwAcceleration && strategy == LAYER_STRATEGY_PERMANENT) {
+			for (int x = 0; x < getChildCount(); x++) {
+				getChildAt(x).setLayerType(LAYER_TYPE_HARDWARE, null);
+			}
+		} else if (mStackAnimator.isRunning()) {
+			beginCardLayers();
+		}
+	}
+
+	/**
+	 * Sets the interpolator used when the top view leaves to the left.
+	 *
+	 * @param interpolator The interpolator or null for the default linear motion.
+	 */
+	public void setSwipeLeftInterpolator(@Nullable TimeInterpolator interpolator) {
+		mSwipeHelper.setSwipeLeftInterpolator(interpolator);
+	}
+
+	/**
+	 * Sets the interpolator used when the top view leaves to the right.
+	 *
+	 * @param interpolator The interpolator or null for the default linear motion.
+	 */
+	public void setSwipeRightInterpolator(@Nullable TimeInterpolator interpolator) {
+		mSwipeHelper.setSwipeRightInterpolator(interpolator);
+	}
+
+	/**
+	 * Sets the interpolator used when the top view moves back to its position.
+	 *
+	 * @param interpolator The interpolator or null for the default overshoot.
+	 */
+	public void setResetInterpolator(@Nullable TimeInterpolator interpolator) {
+		mSwipeHelper.setResetInterpolator(interpolator);
+	}
+
+	/**
+	 * Register a callback to be invoked when the user has swiped the top view
+	 * left / right or when the stack gets empty.
+	 *
+	 * @param listener The callback that will run
+	 */
+	public void setListener(@Nullable SwipeStackListener listener) {
+		mListener = listener;
+	}
+
+	/**
+	 * Register a callback to be invoked with the release velocity when the
+	 * user lets go of the top view.
+	 *
+	 * @param listener The callback that will run
+	 */
+	public void setSwipeVelocityListener(@Nullable SwipeVelocityListener listener) {
+		mVelocityListener = listener;
+	}
+
+	/**
+	 * Register a callback to be invoked when the user starts / stops interacting
+	 * with the top view of the stack.
+	 *
+	 * @param listener The callback that will run
+	 */
+	public void setSwipeProgressListener(@Nullable SwipeProgressListener listener) {
+		mProgressListener = listener;
+	}
+
+	/**
+	 * Register a callback to be invoked with the frame timing of every swipe
+	 * gesture. Nothing is measured while no callback is set and adaptive
+	 * quality is disabled.
+	 *
+	 * @param listener The callback that will run
+	 */
+	public void setSwipeMetricsListener(@Nullable SwipeMetricsListener listener) {
+		mMetricsListener = listener;
+		updateMetricsRecorder();
+	}
+
+	private void updateMetricsRecorder() {
+		boolean measure = mMetricsListener != null || mQualityTierTracker != null;
+		if (measure == (mMetricsRecorder != null)) return;
+		if (mMetricsRecorder != null) mMetricsRecorder.cancel();
+		mMetricsRecorder = measure ? new SwipeMetricsRecorder(getContext(), mMetricsDispatcher) : null;
+	}
+
+	/**
+	 * Enables or disables spring animations. With springs, released and
+	 * dismissed cards keep the velocity they were thrown with, a card can be
+	 * retargeted while it moves without losing its momentum, and the time a
+	 * card takes to settle depends on the distance it travels instead of the
+	 * animation duration.
+	 *
+	 * @param enabled Whether cards are animated with springs.
+	 */
+	public void setSpringAnimation(boolean enabled) {
+		mSpringAnimation = enabled;
+		mStackAnimator.setSpring(mSpringAnimation, mSpringStiffness, mSpringDamping);
+	}
+
+	/**
+	 * Sets the parameters of the spring animations.
+	 *
+	 * @param stiffness The stiffness of the spring, by default {@link #DEFAULT_SPRING_STIFFNESS}.
+	 * @param damping The damping ratio of the spring, 1 for no bounce, by default {@link #DEFAULT_SPRING_DAMPING}.
+	 * @see #setSpringAnimation(boolean)
+	 */
+	public void setSpringParameters(float stiffness, float damping) {
+		mSpringStiffness = stiffness;
+		mSpringDamping = damping;
+		mStackAnimator.setSpring(mSpringAnimation, mSpringStiffness, mSpringDamping);
+	}
+
+	/**
+	 * Enables or disables adaptive quality. When enabled, the frame timing of
+	 * every swipe gesture is measured and the SwipeStack steps down one quality
+	 * tier after repeated gestures missed the frame budget, and back up after
+	 * a run of smooth gestures. Disabling it restores the full quality.
+	 *
+	 * @param enabled Whether the quality adapts to the frame timing.
+	 * @see #getQualityTier()
+	 */
+	public void setAdaptiveQuality(boolean enabled) {
+		if (enabled == (mQualityTierTracker != null)) return;
+		mQualityTierTracker = enabled ? new QualityTierTracker() : null;
+		updateMetricsRecorder();
+		if (!enabled) {
+			removeCallbacks(mQualityTierRunnable);
+			mRequestedQualityTier = QUALITY_TIER_FULL;
+			setQualityTier(QUALITY_TIER_FULL);
+		}
+	}
+
+	/**
+	 * Returns the current quality tier. Every tier keeps the reductions of the
+	 * tiers before it: {@link #QUALITY_TIER_NO_FADE} doesn't fade swiped cards,
+	 * {@link #QUALITY_TIER_NO_ROTATION} doesn't rotate them,
+	 * {@link #QUALITY_TIER_STATIC_STACK} doesn't move the cards underneath
+	 * until a swipe ended and {@link #QUALITY_TIER_REDUCED_STACK} shows at
+	 * most two cards.
+	 *
+	 * @return The quality tier, {@link #QUALITY_TIER_FULL} unless adaptive quality lowered it.
+	 */
+	public int getQualityTier() {
+		return mQualityTier;
+	}
+
+	/**
+	 * Changes the quality tier after the current frame. Gestures end during
+	 * layout, where the stack can't remove cards or request another layout.
+	 */
+	private void requestQualityTier(int tier) {
+		if (tier == mRequestedQualityTier) return;
+		mRequestedQualityTier = tier;
+		removeCallbacks(mQualityTierRunnable);
+		post(mQualityTierRunnable);
+	}
+
+	private void setQualityTier(int tier) {
+		if (tier == mQualityTier) return;
+		int previousTier = mQualityTier;
+		mQualityTier = tier;
+
+		mSwipeHelper.setFadeEnabled(tier < QUALITY_TIER_NO_FADE);
+		mSwipeHelper.setRotation(tier < QUALITY_TIER_NO_ROTATION ? mSwipeRotation : 0);
+		if (tier >= QUALITY_TIER_REDUCED_STACK) {
+			mNumberOfStackedViews = Math.min(mConfiguredStackSize, REDUCED_STACK_SIZE);
+			while (getChildCount() > Math.max(mNumberOfStackedViews, 1)) {
+				returnBottomView();
+			}
+			invalidate();
+		} else if (mNumberOfStackedViews != mConfiguredStackSize) {
+			mNumberOfStackedViews = mConfiguredStackSize;
+			requestLayout();
+		}
+
+		if (mQualityTierListener != null) mQualityTierListener.onQualityTierChanged(previousTier, tier);
+	}
+
+	/**
+	 * Register a callback to be invoked when adaptive quality changed the
+	 * quality tier.
+	 *
+	 * @param listener The callback that will run
+	 */
+	public void setQualityTierListener(@Nullable QualityTierListener listener) {
+		mQualityTierListener = listener;
+	}
 
 	/**
-	 * Programmatically dismiss the top view to the right.
+	 * Get the view from the top of the stack.
+	 *
+	 * @return The view if the stack is not empty or null otherwise.
+	 */
+	public View getTopView() {
+		int topViewIndex = getChildCount() - 1;
+		return getChildAt(topViewIndex);
+	}
+
+	/**
+	 * Programmatically dismiss the top view to the right. If the top view is
+	 * still leaving from a previous swipe, the next view is dismissed right
+	 * away while the previous one finishes its exit. Otherwise the swipe is
+	 * queued until the top view can be swiped.
 	 */
 	public void swipeTopViewToRight() {
-		if (getChildCount() == 0) return;
-		rememberPositions();
-		animateStack();
-		mSwipeHelper.swipeViewToRight();
-		//animateStackOnProgress(1f, true, 200);
+		requestSwipe(EXIT_DIRECTION_RIGHT);
 	}
 
 	/**
 	 * Programmatically dismiss the top view to the left.
+	 *
+	 * @see #swipeTopViewToRight()
 	 */
 	public void swipeTopViewToLeft() {
-		if (getChildCount() == 0) return;
-		rememberPositions();
-		animateStack();
-		mSwipeHelper.swipeViewToLeft();
-		//animateStackOnProgress(1f, true, 200);
+		requestSwipe(EXIT_DIRECTION_LEFT);
+	}
+
+	/**
+	 * Programmatically dismiss the given number of views to the right, one
+	 * after another with the stagger set by {@link #setSwipeStagger(int)}.
+	 * A {@link BatchSwipeListener} is notified once for all of them, otherwise
+	 * the {@link SwipeStackListener} is notified for every view but can't keep
+	 * it on the stack.
+	 *
+	 * @param count The number of views to dismiss.
+	 */
+	public void swipeTopViewsToRight(int count) {
+		requestSwipes(count, EXIT_DIRECTION_RIGHT, false);
+	}
+
+	/**
+	 * Programmatically dismiss the given number of views to the left.
+	 *
+	 * @param count The number of views to dismiss.
+	 * @see #swipeTopViewsToRight(int)
+	 */
+	public void swipeTopViewsToLeft(int count) {
+		requestSwipes(count, EXIT_DIRECTION_LEFT, false);
+	}
+
+	/**
+	 * Sets the delay between the swipes of a batch.
+	 *
+	 * @param stagger The delay in milliseconds, by default {@link #DEFAULT_SWIPE_STAGGER}.
+	 */
+	public void setSwipeStagger(int stagger) {
+		mSwipeStagger = stagger;
+	}
+
+	/**
+	 * Register a callback to be invoked once for every batch of views
+	 * dismissed with {@link #swipeTopViewsToRight(int)} or {@link #swipeTopViewsToLeft(int)}.
+	 *
+	 * @param listener The callback that will run
+	 */
+	public void setBatchSwipeListener(@Nullable BatchSwipeListener listener) {
+		mBatchListener = listener;
+	}
+
+	/**
+	 * Moves the stack to the given adapter position without creating views for
+	 * the positions in between. The cards on the stack are bound to their new
+	 * positions, reusing them whenever the adapter allows it.
+	 *
+	 * @param position The new adapter position of the top view.
+	 */
+	public void seekTo(int position) {
+		seekTo(position, false);
+	}
+
+	/**
+	 * Moves the stack to the given adapter position. If animated, a short jump
+	 * forward to a view that is already on the stack dismisses the views in
+	 * between with staggered swipes to the left, without notifying the
+	 * listeners. Any other jump is not animated.
+	 *
+	 * @param position The new adapter position of the top view.
+	 * @param animate true to animate short jumps forward.
+	 * @see #seekTo(int)
+	 */
+	public void seekTo(int position, boolean animate) {
+		if (mAdapter == null) return;
+		clearPendingSwipes();
+		int itemCount = mAdapter.getCount();
+		position = Math.max(0, Math.min(position, itemCount));
+		int distance = position - getCurrentPosition();
+		if (distance == 0) return;
+		if (animate && distance > 0 && distance <= getChildCount()) {
+			requestSwipes(distance, EXIT_DIRECTION_LEFT, true);
+			return;
+		}
+
+		stopStackAnimation();
+		clearDismissedCards();
+		cancelResourceRequests();
+		discardPrefetchedViews();
+
+		// Keep as many cards as the new position needs and drop the others from the bottom.
+		int keptViewCount = Math.min(getChildCount(), itemCount - position);
+		if (keptViewCount == 0) mSwipeHelper.unregisterObservedView();
+		while (getChildCount() > keptViewCount) {
+			View childView = getChildAt(0);
+			removeViewInLayout(childView);
+			recycleView(childView);
+		}
+
+		mCurrentViewIndex = position + keptViewCount;
+		for (int x = 0; x < keptViewCount; x++) {
+			rebindView(x, mCurrentViewIndex - 1 - x);
+		}
+		invalidate();
+		requestLayout();
+		dispatchCurrentPositionChanged();
+
+		if (position == itemCount && mListener != null) mListener.onStackEmpty();
 	}
 
 	/**
@@ -500,8 +2188,200 @@ public class SwipeStack extends ViewGroup {
 	 */
 	public void resetStack() {
 		mCurrentViewIndex = 0;
-		removeAllViewsInLayout();
+		recycleAllViews();
+		discardPrefetchedViews();
 		requestLayout();
+		cancelResourceRequests();
+		clearDismissedCards();
+		dispatchCurrentPositionChanged();
+	}
+
+	/**
+	 * Register a callback to be invoked on the background executor for the
+	 * positions after the stack, so the resources of their cards can be
+	 * loaded before the cards are bound.
+	 *
+	 * @param prefetcher The callback that will run
+	 * @see #setBackgroundExecutor(Executor)
+	 */
+	public void setResourcePrefetcher(@Nullable ResourcePrefetcher prefetcher) {
+		cancelResourceRequests();
+		mResourcePrefetcher = prefetcher;
+		requestResources();
+	}
+
+	/**
+	 * Sets the number of positions after the stack whose resources are
+	 * prefetched.
+	 *
+	 * @param lookahead The number of positions, by default {@link #DEFAULT_RESOURCE_PREFETCH_LOOKAHEAD}.
+	 */
+	public void setResourcePrefetchLookahead(int lookahead) {
+		mResourcePrefetchLookahead = lookahead;
+		requestResources();
+	}
+
+	/**
+	 * Sets the number of dismissed cards that are kept so they can be brought
+	 * back with {@link #undoLastSwipe()}. Cards beyond that number are recycled.
+	 *
+	 * @param depth The number of cards to keep, 0 disables undo.
+	 */
+	public void setUndoDepth(int depth) {
+		mUndoDepth = depth;
+		while (mDismissedCards.size() > depth) {
+			recycleView(mDismissedCards.removeFirst().view);
+		}
+	}
+
+	/**
+	 * Returns the number of upcoming cards that are prepared while the main
+	 * thread is idle.
+	 *
+	 * @return The prefetch depth.
+	 */
+	public int getPrefetchDepth() {
+		return mPrefetchDepth;
+	}
+
+	/**
+	 * Sets the number of upcoming cards beyond the visible stack that are
+	 * created, bound and measured while the main thread is idle, so they only
+	 * need to be attached when they enter the stack.
+	 *
+	 * @param depth The number of cards to prefetch, 0 disables prefetching.
+	 */
+	public void setPrefetchDepth(int depth) {
+		mPrefetchDepth = depth;
+		while (mPrefetchedViews.size() > depth) {
+			recycleView(mPrefetchedViews.remove(mPrefetchedViews.size() - 1));
+		}
+		schedulePrefetch();
+	}
+
+	/**
+	 * Per-card layout information used by the SwipeStack.
+	 */
+	public static class LayoutParams extends ViewGroup.LayoutParams {
+
+		int viewType = Adapter.IGNORE_ITEM_VIEW_TYPE;
+		long itemId = AdapterView.INVALID_ROW_ID;
+		boolean isNewView;
+		boolean isPlaceholder;
+		Bitmap snapshot;
+
+		// Position and scale at the start of a swipe and the values of the card
+		// above, read on every drag event and animation frame.
+		float startX;
+		float startY;
+		float startScaleX;
+		float startScaleY;
+		float startAlpha;
+		float targetY;
+		float targetScaleX;
+		float targetScaleY;
+		boolean followsStack;
+		boolean fadesIn;
+
+		public LayoutParams(Context c, AttributeSet attrs) {
+			super(c, attrs);
+		}
+
+		public LayoutParams(int width, int height) {
+			super(width, height);
+		}
+
+		public LayoutParams(ViewGroup.LayoutParams source) {
+			super(source);
+		}
+
+		void copyStackState(LayoutParams source) {
+			isNewView = source.isNewView;
+			startX = source.startX;
+			startY = source.startY;
+			startScaleX = source.startScaleX;
+			startScaleY = source.startScaleY;
+			startAlpha = source.startAlpha;
+			targetY = source.targetY;
+			targetScaleX = source.targetScaleX;
+			targetScaleY = source.targetScaleY;
+			followsStack = source.followsStack;
+			fadesIn = source.fadesIn;
+		}
+	}
+
+	private static class PendingSwipe {
+		final int direction;
+		final SwipeBatch batch;
+
+		PendingSwipe(int direction, SwipeBatch batch) {
+			this.direction = direction;
+			this.batch = batch;
+		}
+	}
+
+	private static class SwipeBatch {
+		final int count;
+		final int direction;
+		final boolean silent;
+		int positionStart;
+		int swipedCount;
+		boolean finished;
+
+		SwipeBatch(int count, int direction, boolean silent) {
+			this.count = count;
+			this.direction = direction;
+			this.silent = silent;
+		}
+	}
+
+	/**
+	 * A pending call of a {@link ResourcePrefetcher}. The position follows
+	 * inserted and removed items until the request runs.
+	 */
+	private static class ResourceRequest implements Runnable {
+		final ResourcePrefetcher prefetcher;
+		final Object item;
+		final CancellationSignal signal = new CancellationSignal();
+		volatile int position;
+
+		ResourceRequest(ResourcePrefetcher prefetcher, Object item, int position) {
+			this.prefetcher = prefetcher;
+			this.item = item;
+			this.position = position;
+		}
+
+		@Override public void run() {
+			if (!signal.isCanceled()) prefetcher.onPrefetchResources(position, item, signal);
+		}
+	}
+
+	private static class DismissedCard {
+		final View view;
+		final int direction;
+		int position;
+
+		DismissedCard(View view, int position, int direction) {
+			this.view = view;
+			this.position = position;
+			this.direction = direction;
+		}
+	}
+
+	/**
+	 * Interface definition for a callback to be invoked when a batch of views
+	 * was dismissed programmatically.
+	 */
+	public interface BatchSwipeListener {
+		/**
+		 * Called when the views of a batch were swiped, or when the stack got
+		 * empty before all of them were.
+		 *
+		 * @param positionStart The adapter position of the first swiped view.
+		 * @param count The number of swiped views.
+		 * @param swipedToRight true if the views were swiped to the right.
+		 */
+		void onViewsSwiped(int positionStart, int count, boolean swipedToRight);
 	}
 
 	/**
@@ -533,6 +2413,21 @@ public class SwipeStack extends ViewGroup {
 		void onStackEmpty();
 	}
 
+	/**
+	 * Interface definition for a callback to be invoked when the user lets go
+	 * of the top view.
+	 */
+	public interface SwipeVelocityListener {
+		/**
+		 * Called when the user lets go of the top view, before it is either
+		 * dismissed or moved back to its position.
+		 *
+		 * @param position The position of the view in the adapter currently in use.
+		 * @param velocityX The horizontal release velocity in pixels per second.
+		 */
+		void onViewReleased(int position, float velocityX);
+	}
+
 	/**
 	 * Interface definition for a callback to be invoked when the user
 	 * starts / stops interacting with the top view of the stack.
@@ -561,4 +2456,52 @@ public class SwipeStack extends ViewGroup {
 		 */
 		void onSwipeEnd(int position);
 	}
+
+	/**
+	 * Interface definition for a callback to be invoked for adapter positions
+	 * that are about to enter the stack.
+	 */
+	public interface ResourcePrefetcher {
+		/**
+		 * Called on the background executor to load the resources of the card
+		 * for the given position, for example into an image cache. The signal
+		 * is cancelled once the position has been swiped, the stack has been
+		 * reset, the item has been removed or the data changed.
+		 *
+		 * @param position The position of the item in the adapter currently in use.
+		 * Items inserted or removed before it since the request was made are
+		 * accounted for, later changes are not.
+		 * @param item The item as returned by {@link Adapter#getItem(int)}.
+		 * @param signal The signal to check for cancellation while loading.
+		 */
+		void onPrefetchResources(int position, Object item, CancellationSignal signal);
+	}
+
+	/**
+	 * Interface definition for a callback to be invoked when adaptive quality
+	 * changed the quality tier.
+	 */
+	public interface QualityTierListener {
+		/**
+		 * Called after the quality tier changed.
+		 *
+		 * @param previousTier The quality tier used until now.
+		 * @param tier The new quality tier.
+		 */
+		void onQualityTierChanged(int previousTier, int tier);
+	}
+
+	/**
+	 * Interface definition for a callback to be invoked with the frame timing
+	 * of a swipe gesture.
+	 */
+	public interface SwipeMetricsListener {
+		/**
+		 * Called when the card of a gesture has been dismissed or has moved
+		 * back to its position.
+		 *
+		 * @param metrics The metrics of the gesture, only valid during this call.
+		 */
+		void onSwipeMetrics(SwipeMetrics metrics);
+	}
 }
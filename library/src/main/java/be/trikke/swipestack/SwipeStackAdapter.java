@@ -0,0 +1,122 @@
+/*
+ * Copyright (C) 2016 Frederik Schweiger
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package be.trikke.swipestack;
+
+import android.widget.BaseAdapter;
+import java.util.ArrayList;
+
+/**
+ * Base adapter that can describe changes to its data item by item. A
+ * {@link SwipeStack} using it only rebinds the visible cards that are affected
+ * by a change and keeps its position consistent when items are inserted or
+ * removed before it, instead of rebuilding the whole stack.
+ * <p>
+ * The item notifications are only delivered to SwipeStacks. If the adapter is
+ * shared with other views, call {@link #notifyDataSetChanged()} for those.
+ * <p>
+ * If {@link #hasStableIds()} returns true, a coarse {@link #notifyDataSetChanged()}
+ * keeps every visible card whose item id is unchanged as well.
+ */
+public abstract class SwipeStackAdapter extends BaseAdapter {
+
+	interface ItemObserver {
+		void onItemRangeChanged(int positionStart, int itemCount);
+
+		void onItemRangeInserted(int positionStart, int itemCount);
+
+		void onItemRangeRemoved(int positionStart, int itemCount);
+	}
+
+	private final ArrayList<ItemObserver> mItemObservers = new ArrayList<>();
+
+	void registerItemObserver(ItemObserver observer) {
+		if (!mItemObservers.contains(observer)) mItemObservers.add(observer);
+	}
+
+	void unregisterItemObserver(ItemObserver observer) {
+		mItemObservers.remove(observer);
+	}
+
+	/**
+	 * Called by the SwipeStack when its current position changed.
+	 */
+	void onCurrentPositionChanged(int position) {
+	}
+
+	/**
+	 * Notifies that the item at the given position changed.
+	 *
+	 * @param position The position of the changed item.
+	 */
+	public final void notifyItemChanged(int position) {
+		notifyItemRangeChanged(position, 1);
+	}
+
+	/**
+	 * Notifies that a range of items changed.
+	 *
+	 * @param positionStart The position of the first changed item.
+	 * @param itemCount The number of changed items.
+	 */
+	public final void notifyItemRangeChanged(int positionStart, int itemCount) {
+		for (int x = mItemObservers.size() - 1; x >= 0; x--) {
+			mItemObservers.get(x).onItemRangeChanged(positionStart, itemCount);
+		}
+	}
+
+	/**
+	 * Notifies that an item was inserted at the given position.
+	 *
+	 * @param position The position of the new item.
+	 */
+	public final void notifyItemInserted(int position) {
+		notifyItemRangeInserted(position, 1);
+	}
+
+	/**
+	 * Notifies that a range of items was inserted.
+	 *
+	 * @param positionStart The position of the first new item.
+	 * @param itemCount The number of new items.
+	 */
+	public final void notifyItemRangeInserted(int positionStart, int itemCount) {
+		for (int x = mItemObservers.size() - 1; x >= 0; x--) {
+			mItemObservers.get(x).onItemRangeInserted(positionStart, itemCount);
+		}
+	}
+
+	/**
+	 * Notifies that the item previously at the given position was removed.
+	 *
+	 * @param position The former position of the removed item.
+	 */
+	public final void notifyItemRemoved(int position) {
+		notifyItemRangeRemoved(position, 1);
+	}
+
+	/**
+	 * Notifies that a range of items was removed.
+	 *
+	 * @param positionStart The former position of the first removed item.
+	 * @param itemCount The number of removed items.
+	 */
+	public final void notifyItemRangeRemoved(int positionStart, int itemCount) {
+		for (int x = mItemObservers.size() - 1; x >= 0; x--) {
+			mItemObservers.get(x).onItemRangeRemoved(positionStart, itemCount);
+		}
+	}
+}
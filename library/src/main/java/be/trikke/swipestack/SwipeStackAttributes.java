@@ -0,0 +1,202 @@
+/*
+ * Copyright (C) 2016 Frederik Schweiger
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package be.trikke.swipestack;
+
+import android.content.Context;
+import android.content.res.Configuration;
+import android.content.res.Resources;
+import android.content.res.TypedArray;
+import android.text.TextUtils;
+import android.util.AttributeSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.WeakHashMap;
+
+/**
+ * The parsed attributes of a {@link SwipeStack}. Stacks inflated with the same
+ * SwipeStack attributes and style in the same theme and configuration share
+ * one instance, so the styleables are only resolved for the first of them.
+ */
+final class SwipeStackAttributes {
+
+	private static final WeakHashMap<Resources.Theme, ThemeCache> sCache = new WeakHashMap<>();
+
+	int allowedSwipeDirections;
+	int animationDuration;
+	int stackSize;
+	int stackSpacing;
+	int stackRotation;
+	float swipeRotation;
+	float swipeOpacity;
+	float scaleFactor;
+	boolean disableHwAcceleration;
+	int prefetchDepth;
+	int layerStrategy;
+	float flingMinVelocity;
+	int flingMinDistance;
+	boolean coalesceTouchEvents;
+	boolean snapshotBackgroundCards;
+	float snapshotScale;
+	boolean occlusionCulling;
+	int undoDepth;
+	boolean springAnimation;
+	float springStiffness;
+	float springDamping;
+	boolean adaptiveQuality;
+
+	private SwipeStackAttributes() {
+	}
+
+	static SwipeStackAttributes obtain(Context context, AttributeSet attributeSet) {
+		Resources.Theme theme = context.getTheme();
+		Configuration configuration = context.getResources().getConfiguration();
+		// Views may be inflated on a background thread.
+		synchronized (sCache) {
+			ThemeCache themeCache = sCache.get(theme);
+			if (themeCache == null) {
+				themeCache = new ThemeCache();
+				sCache.put(theme, themeCache);
+			}
+			// Dimensions and qualified resources resolve differently after a
+			// configuration change, which updates the theme in place.
+			if (!configuration.equals(themeCache.configuration)) {
+				themeCache.entries.clear();
+				themeCache.configuration = new Configuration(configuration);
+			}
+			for (int x = 0; x < themeCache.entries.size(); x++) {
+				CacheEntry entry = themeCache.entries.get(x);
+				if (entry.matches(attributeSet)) return entry.attributes;
+			}
+			CacheEntry entry = new CacheEntry(attributeSet, read(context, attributeSet));
+			themeCache.entries.add(entry);
+			return entry.attributes;
+		}
+	}
+
+	private static boolean isSwipeStackAttribute(AttributeSet attributeSet, int index) {
+		return Arrays.binarySearch(be.trikke.swipestack.R.styleable.SwipeStack, attributeSet.getAttributeNameResource(index)) >= 0;
+	}
+
+	private static SwipeStackAttributes read(Context context, AttributeSet attributeSet) {
+		SwipeStackAttributes attributes = new SwipeStackAttributes();
+		Resources resources = context.getResources();
+		TypedArray attrs = context.obtainStyledAttributes(attributeSet, be.trikke.swipestack.R.styleable.SwipeStack);
+
+		try {
+			attributes.allowedSwipeDirections = attrs.getInt(be.trikke.swipestack.R.styleable.SwipeStack_allowed_swipe_directions,
+					SwipeStack.SWIPE_DIRECTION_BOTH);
+			attributes.animationDuration = attrs.getInt(be.trikke.swipestack.R.styleable.SwipeStack_animation_duration,
+					SwipeStack.DEFAULT_ANIMATION_DURATION);
+			attributes.stackSize = attrs.getInt(be.trikke.swipestack.R.styleable.SwipeStack_stack_size, SwipeStack.DEFAULT_STACK_SIZE);
+			attributes.stackSpacing = attrs.getDimensionPixelSize(be.trikke.swipestack.R.styleable.SwipeStack_stack_spacing,
+					resources.getDimensionPixelSize(be.trikke.swipestack.R.dimen.default_stack_spacing));
+			attributes.stackRotation = attrs.getInt(be.trikke.swipestack.R.styleable.SwipeStack_stack_rotation,
+					SwipeStack.DEFAULT_STACK_ROTATION);
+			attributes.swipeRotation = attrs.getFloat(be.trikke.swipestack.R.styleable.SwipeStack_swipe_rotation,
+					SwipeStack.DEFAULT_SWIPE_ROTATION);
+			attributes.swipeOpacity = attrs.getFloat(be.trikke.swipestack.R.styleable.SwipeStack_swipe_opacity,
+					SwipeStack.DEFAULT_SWIPE_OPACITY);
+			attributes.scaleFactor = attrs.getFloat(be.trikke.swipestack.R.styleable.SwipeStack_scale_factor,
+					SwipeStack.DEFAULT_SCALE_FACTOR);
+			attributes.disableHwAcceleration = attrs.getBoolean(be.trikke.swipestack.R.styleable.SwipeStack_disable_hw_acceleration,
+					SwipeStack.DEFAULT_DISABLE_HW_ACCELERATION);
+			attributes.prefetchDepth = attrs.getInt(be.trikke.swipestack.R.styleable.SwipeStack_prefetch_depth,
+					SwipeStack.DEFAULT_PREFETCH_DEPTH);
+			attributes.layerStrategy = attrs.getInt(be.trikke.swipestack.R.styleable.SwipeStack_layer_strategy,
+					SwipeStack.DEFAULT_LAYER_STRATEGY);
+			attributes.flingMinVelocity = attrs.getDimension(be.trikke.swipestack.R.styleable.SwipeStack_fling_min_velocity,
+					resources.getDimension(be.trikke.swipestack.R.dimen.default_fling_min_velocity));
+			attributes.flingMinDistance = attrs.getDimensionPixelSize(be.trikke.swipestack.R.styleable.SwipeStack_fling_min_distance,
+					resources.getDimensionPixelSize(be.trikke.swipestack.R.dimen.default_fling_min_distance));
+			attributes.coalesceTouchEvents = attrs.getBoolean(be.trikke.swipestack.R.styleable.SwipeStack_coalesce_touch_events,
+					SwipeStack.DEFAULT_COALESCE_TOUCH_EVENTS);
+			attributes.snapshotBackgroundCards = attrs.getBoolean(be.trikke.swipestack.R.styleable.SwipeStack_snapshot_background_cards,
+					SwipeStack.DEFAULT_SNAPSHOT_BACKGROUND_CARDS);
+			attributes.snapshotScale = attrs.getFloat(be.trikke.swipestack.R.styleable.SwipeStack_snapshot_scale,
+					SwipeStack.DEFAULT_SNAPSHOT_SCALE);
+			attributes.occlusionCulling = attrs.getBoolean(be.trikke.swipestack.R.styleable.SwipeStack_occlusion_culling,
+					SwipeStack.DEFAULT_OCCLUSION_CULLING);
+			attributes.undoDepth = attrs.getInt(be.trikke.swipestack.R.styleable.SwipeStack_undo_depth, SwipeStack.DEFAULT_UNDO_DEPTH);
+			attributes.springAnimation = attrs.getBoolean(be.trikke.swipestack.R.styleable.SwipeStack_spring_animation,
+					SwipeStack.DEFAULT_SPRING_ANIMATION);
+			attributes.springStiffness = attrs.getFloat(be.trikke.swipestack.R.styleable.SwipeStack_spring_stiffness,
+					SwipeStack.DEFAULT_SPRING_STIFFNESS);
+			attributes.springDamping = attrs.getFloat(be.trikke.swipestack.R.styleable.SwipeStack_spring_damping,
+					SwipeStack.DEFAULT_SPRING_DAMPING);
+			attributes.adaptiveQuality = attrs.getBoolean(be.trikke.swipestack.R.styleable.SwipeStack_adaptive_quality,
+					SwipeStack.DEFAULT_ADAPTIVE_QUALITY);
+		} finally {
+			attrs.recycle();
+		}
+		return attributes;
+	}
+
+	private static final class ThemeCache {
+		final ArrayList<CacheEntry> entries = new ArrayList<>();
+		Configuration configuration;
+	}
+
+	/**
+	 * The attributes read for a style and the raw values of the SwipeStack
+	 * attributes. Other attributes such as the id or the layout parameters
+	 * differ between otherwise equal stacks and are left out.
+	 */
+	private static final class CacheEntry {
+		final SwipeStackAttributes attributes;
+		private final int mStyleAttribute;
+		private final int[] mNames;
+		private final String[] mValues;
+
+		CacheEntry(AttributeSet attributeSet, SwipeStackAttributes attributes) {
+			this.attributes = attributes;
+			int attributeCount = attributeSet != null ? attributeSet.getAttributeCount() : 0;
+			int count = 0;
+			for (int x = 0; x < attributeCount; x++) {
+				if (isSwipeStackAttribute(attributeSet, x)) count++;
+			}
+
+			mStyleAttribute = attributeSet != null ? attributeSet.getStyleAttribute() : 0;
+			mNames = new int[count];
+			mValues = new String[count];
+			for (int x = 0, index = 0; x < attributeCount; x++) {
+				if (!isSwipeStackAttribute(attributeSet, x)) continue;
+				mNames[index] = attributeSet.getAttributeNameResource(x);
+				mValues[index] = attributeSet.getAttributeValue(x);
+				index++;
+			}
+		}
+
+		/**
+		 * Compares the attributes in place, so a cache hit doesn't allocate.
+		 */
+		boolean matches(AttributeSet attributeSet) {
+			if (attributeSet == null) return mStyleAttribute == 0 && mNames.length == 0;
+			if (attributeSet.getStyleAttribute() != mStyleAttribute) return false;
+
+			int matched = 0;
+			for (int x = 0; x < attributeSet.getAttributeCount(); x++) {
+				if (!isSwipeStackAttribute(attributeSet, x)) continue;
+				if (matched == mNames.length || attributeSet.getAttributeNameResource(x) != mNames[matched]
+						|| !TextUtils.equals(attributeSet.getAttributeValue(x), mValues[matched])) {
+					return false;
+				}
+				matched++;
+			}
+			return matched == mNames.length;
+		}
+	}
+}
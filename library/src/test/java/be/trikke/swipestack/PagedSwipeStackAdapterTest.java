@@ -0,0 +1,178 @@
+/*
+ * Copyright (C) 2016 Frederik Schweiger
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package be.trikke.swipestack;
+
+import android.view.View;
+import android.view.ViewGroup;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 23)
+public class PagedSwipeStackAdapterTest {
+
+	private TestAdapter mAdapter;
+	private final List<Integer> mLoadRequests = new ArrayList<>();
+	private final List<String> mItemChanges = new ArrayList<>();
+
+	@Before public void setUp() {
+		mAdapter = new TestAdapter();
+		mAdapter.registerItemObserver(new SwipeStackAdapter.ItemObserver() {
+			@Override public void onItemRangeChanged(int positionStart, int itemCount) {
+				mItemChanges.add("changed " + positionStart + "," + itemCount);
+			}
+
+			@Override public void onItemRangeInserted(int positionStart, int itemCount) {
+				mItemChanges.add("inserted " + positionStart + "," + itemCount);
+			}
+
+			@Override public void onItemRangeRemoved(int positionStart, int itemCount) {
+				mItemChanges.add("removed " + positionStart + "," + itemCount);
+			}
+		});
+	}
+
+	@Test public void requestsFirstPageOnceListenerIsSet() {
+		setLoadMoreListener();
+		assertEquals(Collections.singletonList(0), mLoadRequests);
+		assertTrue(mAdapter.isLoading());
+	}
+
+	@Test public void doesNotRequestWhileLoading() {
+		setLoadMoreListener();
+		mAdapter.onCurrentPositionChanged(0);
+		mAdapter.setLoadThreshold(10);
+		assertEquals(1, mLoadRequests.size());
+	}
+
+	@Test public void requestsNextPageBelowThreshold() {
+		setLoadMoreListener();
+		mAdapter.appendPage(page(0, 10), true);
+		assertEquals(Collections.singletonList("inserted 0,10"), mItemChanges);
+		assertFalse(mAdapter.isLoading());
+
+		mAdapter.onCurrentPositionChanged(5);
+		assertEquals(1, mLoadRequests.size());
+		mAdapter.onCurrentPositionChanged(6);
+		assertEquals(Arrays.asList(0, 10), mLoadRequests);
+	}
+
+	@Test public void requestsMoreAfterSmallPage() {
+		setLoadMoreListener();
+		mAdapter.appendPage(page(0, 2), true);
+		assertEquals(Arrays.asList(0, 2), mLoadRequests);
+	}
+
+	@Test public void stopsRequestingAfterLastPage() {
+		setLoadMoreListener();
+		mAdapter.appendPage(page(0, 3), false);
+		mAdapter.onCurrentPositionChanged(3);
+		assertEquals(1, mLoadRequests.size());
+		assertFalse(mAdapter.hasMore());
+	}
+
+	@Test public void retriesAfterFailedLoad() {
+		setLoadMoreListener();
+		mAdapter.onLoadFailed();
+		assertFalse(mAdapter.isLoading());
+		mAdapter.onCurrentPositionChanged(0);
+		assertEquals(Arrays.asList(0, 0), mLoadRequests);
+	}
+
+	@Test public void evictsSwipedItems() {
+		mAdapter.setMaxSwipedItems(2);
+		mAdapter.appendPage(page(0, 20), true);
+		mItemChanges.clear();
+
+		mAdapter.onCurrentPositionChanged(2);
+		assertTrue(mItemChanges.isEmpty());
+
+		mAdapter.onCurrentPositionChanged(5);
+		assertEquals(Collections.singletonList("removed 0,3"), mItemChanges);
+		assertEquals(17, mAdapter.getCount());
+		assertEquals(3, mAdapter.getEvictedCount());
+		assertEquals(3, (int) mAdapter.getItem(0));
+	}
+
+	@Test public void loadRequestCountsEvictedItems() {
+		mAdapter.setMaxSwipedItems(0);
+		mAdapter.appendPage(page(0, 10), true);
+		setLoadMoreListener();
+		mAdapter.onCurrentPositionChanged(6);
+		assertEquals(6, mAdapter.getEvictedCount());
+		assertEquals(Collections.singletonList(10), mLoadRequests);
+	}
+
+	@Test public void retainsAllSwipedItemsByDefault() {
+		mAdapter.appendPage(page(0, 10), true);
+		mItemChanges.clear();
+		mAdapter.onCurrentPositionChanged(9);
+		assertTrue(mItemChanges.isEmpty());
+		assertEquals(0, mAdapter.getEvictedCount());
+	}
+
+	@Test public void clearStartsOver() {
+		mAdapter.setMaxSwipedItems(1);
+		mAdapter.appendPage(page(0, 10), false);
+		mAdapter.onCurrentPositionChanged(4);
+		setLoadMoreListener();
+		mItemChanges.clear();
+
+		mAdapter.clear();
+		assertEquals(Collections.singletonList("removed 0,7"), mItemChanges);
+		assertEquals(0, mAdapter.getEvictedCount());
+		assertTrue(mAdapter.hasMore());
+		assertEquals(Collections.singletonList(0), mLoadRequests);
+	}
+
+	private void setLoadMoreListener() {
+		mAdapter.setOnLoadMoreListener(new PagedSwipeStackAdapter.OnLoadMoreListener() {
+			@Override public void onLoadMore(int totalItemCount) {
+				mLoadRequests.add(totalItemCount);
+			}
+		});
+	}
+
+	private static List<Integer> page(int start, int count) {
+		List<Integer> page = new ArrayList<>();
+		for (int x = start; x < start + count; x++) {
+			page.add(x);
+		}
+		return page;
+	}
+
+	private static class TestAdapter extends PagedSwipeStackAdapter<Integer> {
+		@Override public long getItemId(int position) {
+			return position;
+		}
+
+		@Override public View getView(int position, View convertView, ViewGroup parent) {
+			return convertView != null ? convertView : new View(parent.getContext());
+		}
+	}
+}
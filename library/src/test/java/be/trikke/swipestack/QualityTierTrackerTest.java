@@ -0,0 +1,97 @@
+/*
+ * Copyright (C) 2016 Frederik Schweiger
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package be.trikke.swipestack;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class QualityTierTrackerTest {
+
+	private QualityTierTracker mTracker;
+
+	@Before public void setUp() {
+		mTracker = new QualityTierTracker();
+	}
+
+	@Test public void lowersTierAfterMissedGestures() {
+		int tier = SwipeStack.QUALITY_TIER_FULL;
+		tier = mTracker.onSwipeMetrics(metrics(30, 10), tier);
+		assertEquals(SwipeStack.QUALITY_TIER_FULL, tier);
+		tier = mTracker.onSwipeMetrics(metrics(30, 10), tier);
+		assertEquals(SwipeStack.QUALITY_TIER_NO_FADE, tier);
+	}
+
+	@Test public void smoothGestureInterruptsMissedGestures() {
+		int tier = SwipeStack.QUALITY_TIER_FULL;
+		tier = mTracker.onSwipeMetrics(metrics(30, 10), tier);
+		tier = mTracker.onSwipeMetrics(metrics(30, 0), tier);
+		tier = mTracker.onSwipeMetrics(metrics(30, 10), tier);
+		assertEquals(SwipeStack.QUALITY_TIER_FULL, tier);
+	}
+
+	@Test public void fewLateFramesKeepTier() {
+		int tier = SwipeStack.QUALITY_TIER_NO_ROTATION;
+		for (int x = 0; x < 20; x++) {
+			tier = mTracker.onSwipeMetrics(metrics(30, 5), tier);
+		}
+		assertEquals(SwipeStack.QUALITY_TIER_NO_ROTATION, tier);
+	}
+
+	@Test public void doesNotLowerBelowReducedStack() {
+		int tier = SwipeStack.QUALITY_TIER_FULL;
+		for (int x = 0; x < 20; x++) {
+			tier = mTracker.onSwipeMetrics(metrics(30, 30), tier);
+		}
+		assertEquals(SwipeStack.QUALITY_TIER_REDUCED_STACK, tier);
+	}
+
+	@Test public void raisesTierAfterSmoothGestures() {
+		int tier = SwipeStack.QUALITY_TIER_STATIC_STACK;
+		for (int x = 0; x < 7; x++) {
+			tier = mTracker.onSwipeMetrics(metrics(30, 0), tier);
+		}
+		assertEquals(SwipeStack.QUALITY_TIER_STATIC_STACK, tier);
+		tier = mTracker.onSwipeMetrics(metrics(30, 0), tier);
+		assertEquals(SwipeStack.QUALITY_TIER_NO_ROTATION, tier);
+	}
+
+	@Test public void doesNotRaiseAboveFull() {
+		int tier = SwipeStack.QUALITY_TIER_FULL;
+		for (int x = 0; x < 20; x++) {
+			tier = mTracker.onSwipeMetrics(metrics(30, 0), tier);
+		}
+		assertEquals(SwipeStack.QUALITY_TIER_FULL, tier);
+	}
+
+	@Test public void ignoresGesturesWithoutFrames() {
+		int tier = SwipeStack.QUALITY_TIER_FULL;
+		tier = mTracker.onSwipeMetrics(metrics(30, 10), tier);
+		tier = mTracker.onSwipeMetrics(metrics(0, 0), tier);
+		tier = mTracker.onSwipeMetrics(metrics(30, 10), tier);
+		assertEquals(SwipeStack.QUALITY_TIER_NO_FADE, tier);
+	}
+
+	private static SwipeMetrics metrics(int frameCount, int lateFrameCount) {
+		SwipeMetrics metrics = new SwipeMetrics();
+		metrics.reset(0, 16666667L);
+		metrics.frameCount = frameCount;
+		metrics.lateFrameCount = lateFrameCount;
+		return metrics;
+	}
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright (C) 2016 Frederik Schweiger
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package be.trikke.swipestack;
+
+import android.os.CancellationSignal;
+import android.view.View;
+import android.view.ViewGroup;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executor;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.assertEquals;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 23)
+public class ResourcePrefetcherTest {
+
+	private final List<String> mItems = new ArrayList<>();
+	private final List<Runnable> mQueuedTasks = new ArrayList<>();
+	private final List<String> mPrefetches = new ArrayList<>();
+	private TestAdapter mAdapter;
+
+	@Before public void setUp() {
+		for (int x = 0; x < 10; x++) {
+			mItems.add("item " + x);
+		}
+		mAdapter = new TestAdapter();
+
+		SwipeStack swipeStack = new SwipeStack(RuntimeEnvironment.application, SwipeStackFixtures.createAttributes(3));
+		swipeStack.setBackgroundExecutor(new Executor() {
+			@Override public void execute(Runnable command) {
+				mQueuedTasks.add(command);
+			}
+		});
+		swipeStack.setAdapter(mAdapter);
+		SwipeStackFixtures.layout(swipeStack);
+		swipeStack.setResourcePrefetcher(new SwipeStack.ResourcePrefetcher() {
+			@Override public void onPrefetchResources(int position, Object item, CancellationSignal signal) {
+				mPrefetches.add(position + ": " + item);
+			}
+		});
+	}
+
+	@Test public void prefetchesThePositionsAfterTheStack() {
+		runQueuedTasks();
+		assertEquals(Arrays.asList("3: item 3", "4: item 4", "5: item 5"), mPrefetches);
+	}
+
+	@Test public void pendingRequestsFollowInsertedItems() {
+		mItems.add(0, "inserted");
+		mAdapter.notifyItemInserted(0);
+		runQueuedTasks();
+		assertEquals(Arrays.asList("4: item 3", "5: item 4", "6: item 5"), mPrefetches);
+	}
+
+	@Test public void pendingRequestsFollowRemovedItems() {
+		mItems.remove(0);
+		mAdapter.notifyItemRemoved(0);
+		runQueuedTasks();
+		assertEquals(Arrays.asList("2: item 3", "3: item 4", "4: item 5"), mPrefetches);
+	}
+
+	private void runQueuedTasks() {
+		for (int x = 0; x < mQueuedTasks.size(); x++) {
+			mQueuedTasks.get(x).run();
+		}
+		mQueuedTasks.clear();
+	}
+
+	private class TestAdapter extends SwipeStackAdapter {
+		@Override public int getCount() {
+			return mItems.size();
+		}
+
+		@Override public Object getItem(int position) {
+			return mItems.get(position);
+		}
+
+		@Override public long getItemId(int position) {
+			return position;
+		}
+
+		@Override public View getView(int position, View convertView, ViewGroup parent) {
+			return convertView != null ? convertView : new StubCardView(parent.getContext());
+		}
+	}
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright (C) 2016 Frederik Schweiger
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package be.trikke.swipestack;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class SpringTest {
+
+	private static final float FRAME_SECONDS = 1 / 60f;
+
+	private Spring mSpring;
+
+	@Before public void setUp() {
+		mSpring = new Spring();
+		mSpring.setParameters(SwipeStack.DEFAULT_SPRING_STIFFNESS, SwipeStack.DEFAULT_SPRING_DAMPING);
+	}
+
+	@Test public void comesToRestAtTarget() {
+		mSpring.start(500, 0);
+		int frameCount = advanceUntilRest(mSpring);
+
+		assertTrue(frameCount < 120);
+		assertEquals(500, mSpring.getPosition(), 0.5f);
+	}
+
+	@Test public void criticallyDampedSpringDoesNotOvershoot() {
+		mSpring.setParameters(SwipeStack.DEFAULT_SPRING_STIFFNESS, 1);
+		mSpring.start(500, 0);
+		while (!mSpring.advance(FRAME_SECONDS)) {
+			assertTrue(mSpring.getPosition() <= 500);
+		}
+	}
+
+	@Test public void underdampedSpringOvershoots() {
+		mSpring.setParameters(SwipeStack.DEFAULT_SPRING_STIFFNESS, 0.3f);
+		mSpring.start(500, 0);
+		float maxPosition = 0;
+		while (!mSpring.advance(FRAME_SECONDS)) {
+			maxPosition = Math.max(maxPosition, mSpring.getPosition());
+		}
+		assertTrue(maxPosition > 500);
+	}
+
+	@Test public void startVelocityCarriesOver() {
+		Spring resting = new Spring();
+		resting.start(500, 0);
+		resting.advance(FRAME_SECONDS);
+
+		mSpring.start(500, 3000);
+		mSpring.advance(FRAME_SECONDS);
+
+		assertTrue(mSpring.getPosition() > resting.getPosition());
+		assertTrue(mSpring.getVelocity() > resting.getVelocity());
+	}
+
+	@Test public void motionDoesNotDependOnFrameRate() {
+		Spring slow = new Spring();
+		slow.start(500, 0);
+		mSpring.start(500, 0);
+		for (int x = 0; x < 15; x++) {
+			slow.advance(2 * FRAME_SECONDS);
+			mSpring.advance(FRAME_SECONDS);
+			mSpring.advance(FRAME_SECONDS);
+		}
+		assertEquals(slow.getPosition(), mSpring.getPosition(), 1);
+	}
+
+	@Test public void shortDistanceIsExtended() {
+		mSpring.start(0, 0);
+		assertEquals(1, mSpring.getDistance(), 0);
+		assertFalse(mSpring.advance(0));
+	}
+
+	private static int advanceUntilRest(Spring spring) {
+		int frameCount = 0;
+		while (!spring.advance(FRAME_SECONDS)) {
+			frameCount++;
+		}
+		return frameCount;
+	}
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright (C) 2016 Frederik Schweiger
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package be.trikke.swipestack;
+
+import android.content.Context;
+import android.view.View;
+
+/**
+ * A card that keeps its transformation in fields instead of passing it to the
+ * render node. Robolectric allocates for every change of a view property, so
+ * measurements taken with these cards only cover the work of the SwipeStack.
+ */
+class StubCardView extends View {
+
+	private float mTranslationX;
+	private float mTranslationY;
+	private float mScaleX = 1;
+	private float mScaleY = 1;
+	private float mRotation;
+	private float mAlpha = 1;
+
+	StubCardView(Context context) {
+		super(context);
+	}
+
+	@Override public float getTranslationX() {
+		return mTranslationX;
+	}
+
+	@Override public void setTranslationX(float translationX) {
+		mTranslationX = translationX;
+	}
+
+	@Override public float getTranslationY() {
+		return mTranslationY;
+	}
+
+	@Override public void setTranslationY(float translationY) {
+		mTranslationY = translationY;
+	}
+
+	@Override public float getScaleX() {
+		return mScaleX;
+	}
+
+	@Override public void setScaleX(float scaleX) {
+		mScaleX = scaleX;
+	}
+
+	@Override public float getScaleY() {
+		return mScaleY;
+	}
+
+	@Override public void setScaleY(float scaleY) {
+		mScaleY = scaleY;
+	}
+
+	@Override public float getRotation() {
+		return mRotation;
+	}
+
+	@Override public void setRotation(float rotation) {
+		mRotation = rotation;
+	}
+
+	@Override public float getAlpha() {
+		return mAlpha;
+	}
+
+	@Override public void setAlpha(float alpha) {
+		mAlpha = alpha;
+	}
+}
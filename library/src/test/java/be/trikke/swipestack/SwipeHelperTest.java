@@ -0,0 +1,103 @@
+/*
+ * Copyright (C) 2016 Frederik Schweiger
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package be.trikke.swipestack;
+
+import android.os.SystemClock;
+import android.view.MotionEvent;
+import android.view.View;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowLooper;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 23)
+public class SwipeHelperTest {
+
+	private static final int MOVE_COUNT = 10;
+	private static final int MOVE_INTERVAL = 8;
+	private static final float MOVE_DISTANCE = -20;
+
+	@Test public void releaseVelocityDoesNotDependOnCoalescing() {
+		float velocity = getReleaseVelocity(false);
+		float coalescedVelocity = getReleaseVelocity(true);
+
+		assertTrue(velocity < 0);
+		assertEquals(velocity, coalescedVelocity, Math.abs(velocity) * 0.01f);
+	}
+
+	@Test public void cancelledDragResetsTheCard() {
+		SwipeStack swipeStack = SwipeStackFixtures.createSwipeStack(SwipeStack.DEFAULT_STACK_SIZE);
+		View card = swipeStack.getTopView();
+		float initialX = card.getX();
+		long downTime = SystemClock.uptimeMillis();
+		float fingerX = initialX + card.getWidth() / 2;
+		dispatchTouchEvent(card, downTime, downTime, MotionEvent.ACTION_DOWN, fingerX);
+		for (int x = 1; x <= MOVE_COUNT; x++) {
+			fingerX += MOVE_DISTANCE;
+			dispatchTouchEvent(card, downTime, downTime + x * MOVE_INTERVAL, MotionEvent.ACTION_MOVE, fingerX);
+		}
+		dispatchTouchEvent(card, downTime, downTime + (MOVE_COUNT + 1) * MOVE_INTERVAL, MotionEvent.ACTION_CANCEL, fingerX);
+		ShadowLooper.runUiThreadTasksIncludingDelayedTasks();
+
+		assertEquals(0, swipeStack.getCurrentPosition());
+		assertEquals(initialX, card.getX(), 0);
+		assertTrue(card.dispatchTouchEvent(MotionEvent.obtain(downTime, downTime, MotionEvent.ACTION_DOWN, 0, 0, 0)));
+	}
+
+	/**
+	 * Drags the top card to the left at a constant speed and returns the
+	 * velocity it was released with.
+	 */
+	private static float getReleaseVelocity(boolean coalesce) {
+		SwipeStack swipeStack = SwipeStackFixtures.createSwipeStack(SwipeStack.DEFAULT_STACK_SIZE);
+		swipeStack.setCoalesceTouchEvents(coalesce);
+		final float[] releaseVelocity = new float[1];
+		swipeStack.setSwipeVelocityListener(new SwipeStack.SwipeVelocityListener() {
+			@Override public void onViewReleased(int position, float velocityX) {
+				releaseVelocity[0] = velocityX;
+			}
+		});
+
+		// Coalesced moves wait for the next frame, which only comes after every other event here.
+		if (coalesce) ShadowLooper.pauseMainLooper();
+		View card = swipeStack.getTopView();
+		long downTime = SystemClock.uptimeMillis();
+		float fingerX = card.getX() + card.getWidth() / 2;
+		dispatchTouchEvent(card, downTime, downTime, MotionEvent.ACTION_DOWN, fingerX);
+		for (int x = 1; x <= MOVE_COUNT; x++) {
+			fingerX += MOVE_DISTANCE;
+			dispatchTouchEvent(card, downTime, downTime + x * MOVE_INTERVAL, MotionEvent.ACTION_MOVE, fingerX);
+			if (x % 2 == 1) ShadowLooper.runUiThreadTasksIncludingDelayedTasks();
+		}
+		fingerX += MOVE_DISTANCE;
+		dispatchTouchEvent(card, downTime, downTime + (MOVE_COUNT + 1) * MOVE_INTERVAL, MotionEvent.ACTION_UP, fingerX);
+		ShadowLooper.unPauseMainLooper();
+		return releaseVelocity[0];
+	}
+
+	private static void dispatchTouchEvent(View card, long downTime, long eventTime, int action, float x) {
+		// Like the framework, report the event relative to where the card is drawn right now.
+		MotionEvent event = MotionEvent.obtain(downTime, eventTime, action, x - card.getX(), 0, 0);
+		card.dispatchTouchEvent(event);
+		event.recycle();
+	}
+}
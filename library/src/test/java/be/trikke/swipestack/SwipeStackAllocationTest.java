@@ -0,0 +1,72 @@
+/*
+ * Copyright (C) 2016 Frederik Schweiger
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package be.trikke.swipestack;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.assertEquals;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 23)
+public class SwipeStackAllocationTest {
+
+	private static final int[] STACK_SIZES = {1, 3, 5, 8};
+	private static final int CALL_COUNT = 1000;
+
+	@Test public void swipeProgressDoesNotAllocate() {
+		for (int stackSize : STACK_SIZES) {
+			SwipeStack swipeStack = SwipeStackFixtures.createSwipeStack(stackSize);
+			swipeStack.onSwipeStart();
+			assertEquals("stack_size=" + stackSize, 0, getSwipeProgressAllocations(swipeStack));
+		}
+	}
+
+	@Test public void swipeProgressWithListenerDoesNotAllocate() {
+		SwipeStack swipeStack = SwipeStackFixtures.createSwipeStack(SwipeStack.DEFAULT_STACK_SIZE);
+		swipeStack.setSwipeProgressListener(new SwipeStack.SwipeProgressListener() {
+			@Override public void onSwipeStart(int position) {
+			}
+
+			@Override public void onSwipeProgress(int position, float progress) {
+			}
+
+			@Override public void onSwipeEnd(int position) {
+			}
+		});
+		swipeStack.onSwipeStart();
+		assertEquals(0, getSwipeProgressAllocations(swipeStack));
+	}
+
+	/**
+	 * @return The bytes allocated by {@link SwipeStack#onSwipeProgress(float)}
+	 * over {@link #CALL_COUNT} calls, after the same calls warmed it up.
+	 */
+	private static long getSwipeProgressAllocations(SwipeStack swipeStack) {
+		for (int x = 0; x < CALL_COUNT; x++) {
+			swipeStack.onSwipeProgress((float) x / CALL_COUNT);
+		}
+
+		long startBytes = AllocationCounter.getAllocatedBytes();
+		for (int x = 0; x < CALL_COUNT; x++) {
+			swipeStack.onSwipeProgress((float) x / CALL_COUNT);
+		}
+		return AllocationCounter.getAllocatedBytes() - startBytes;
+	}
+}
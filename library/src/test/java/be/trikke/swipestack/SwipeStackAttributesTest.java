@@ -0,0 +1,64 @@
+/*
+ * Copyright (C) 2016 Frederik Schweiger
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package be.trikke.swipestack;
+
+import android.content.Context;
+import android.content.res.Configuration;
+import android.content.res.Resources;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 23)
+public class SwipeStackAttributesTest {
+
+	@Test public void sharesAttributesOfEqualStacks() {
+		Context context = RuntimeEnvironment.application;
+		SwipeStackAttributes attributes = SwipeStackAttributes.obtain(context, SwipeStackFixtures.createAttributes(4));
+		assertEquals(4, attributes.stackSize);
+		assertSame(attributes, SwipeStackAttributes.obtain(context, SwipeStackFixtures.createAttributes(4)));
+	}
+
+	@Test public void readsDifferentAttributes() {
+		Context context = RuntimeEnvironment.application;
+		SwipeStackAttributes attributes = SwipeStackAttributes.obtain(context, SwipeStackFixtures.createAttributes(4));
+		SwipeStackAttributes otherAttributes = SwipeStackAttributes.obtain(context, SwipeStackFixtures.createAttributes(6));
+		assertNotSame(attributes, otherAttributes);
+		assertEquals(6, otherAttributes.stackSize);
+		assertNotSame(attributes, SwipeStackAttributes.obtain(context, null));
+	}
+
+	@Test public void readsAttributesAgainAfterConfigurationChange() {
+		Context context = RuntimeEnvironment.application;
+		SwipeStackAttributes attributes = SwipeStackAttributes.obtain(context, SwipeStackFixtures.createAttributes(4));
+
+		Resources resources = context.getResources();
+		Configuration configuration = new Configuration(resources.getConfiguration());
+		configuration.orientation = configuration.orientation == Configuration.ORIENTATION_PORTRAIT
+				? Configuration.ORIENTATION_LANDSCAPE : Configuration.ORIENTATION_PORTRAIT;
+		resources.updateConfiguration(configuration, resources.getDisplayMetrics());
+
+		assertNotSame(attributes, SwipeStackAttributes.obtain(context, SwipeStackFixtures.createAttributes(4)));
+	}
+}
@@ -0,0 +1,199 @@
+/*
+ * Copyright (C) 2016 Frederik Schweiger
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package be.trikke.swipestack;
+
+import android.os.SystemClock;
+import android.util.AttributeSet;
+import android.view.MotionEvent;
+import android.view.View;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Locale;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowLooper;
+
+/**
+ * Measures the hot paths of the SwipeStack on the JVM. Every benchmark writes
+ * its results to build/benchmarks/&lt;benchmark&gt;.json, with the time and the
+ * bytes allocated per operation, so they can be compared between releases.
+ * <p>
+ * The cards are {@link StubCardView}s, so the numbers cover the work of the
+ * SwipeStack rather than the view properties of Robolectric. The benchmarks
+ * only run when the build is started with -Pbenchmark.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 23)
+public class SwipeStackBenchmark {
+
+	private static final int[] STACK_SIZES = {1, 3, 5, 8};
+	private static final int WARMUP_ITERATIONS = 2000;
+	private static final int ITERATIONS = 10000;
+	// Robolectric slows down with every view that is added, so keep these short.
+	private static final int REFILL_ITERATIONS = 20;
+	private static final int STARTUP_ITERATIONS = 20;
+	private static final int SWIPE_ITERATIONS = 20;
+	private static final int MOVE_EVENT_COUNT = 20;
+	private static final File RESULTS_DIRECTORY = new File("build/benchmarks");
+
+	@Test public void startup() throws IOException {
+		Report report = new Report("startup");
+		for (int stackSize : STACK_SIZES) {
+			final AttributeSet attributes = SwipeStackFixtures.createAttributes(stackSize);
+			report.measure("create stack_size=" + stackSize, STARTUP_ITERATIONS, new Operation() {
+				@Override public void run(int iteration) {
+					new SwipeStack(RuntimeEnvironment.application, attributes);
+				}
+			});
+			report.measure("create_and_layout stack_size=" + stackSize, STARTUP_ITERATIONS, new Operation() {
+				@Override public void run(int iteration) {
+					SwipeStack swipeStack = new SwipeStack(RuntimeEnvironment.application, attributes);
+					swipeStack.setAdapter(new SwipeStackFixtures.CardAdapter());
+					SwipeStackFixtures.layout(swipeStack);
+				}
+			});
+		}
+		report.write();
+	}
+
+	@Test public void layout() throws IOException {
+		Report report = new Report("layout");
+		for (int stackSize : STACK_SIZES) {
+			final SwipeStack swipeStack = SwipeStackFixtures.createSwipeStack(stackSize);
+			report.measure("relayout stack_size=" + stackSize, ITERATIONS, new Operation() {
+				@Override public void run(int iteration) {
+					swipeStack.onLayout(true, 0, 0, SwipeStackFixtures.WIDTH, SwipeStackFixtures.HEIGHT);
+				}
+			});
+			report.measure("refill stack_size=" + stackSize, REFILL_ITERATIONS, new Operation() {
+				@Override public void run(int iteration) {
+					swipeStack.resetStack();
+					swipeStack.onLayout(false, 0, 0, SwipeStackFixtures.WIDTH, SwipeStackFixtures.HEIGHT);
+				}
+			});
+		}
+		report.write();
+	}
+
+	@Test public void stackProgress() throws IOException {
+		Report report = new Report("stack_progress");
+		for (int stackSize : STACK_SIZES) {
+			final SwipeStack swipeStack = SwipeStackFixtures.createSwipeStack(stackSize);
+			swipeStack.onSwipeStart();
+			report.measure("swipe_progress stack_size=" + stackSize, ITERATIONS, new Operation() {
+				@Override public void run(int iteration) {
+					swipeStack.onSwipeProgress(iteration % 100 / 100f);
+				}
+			});
+		}
+		report.write();
+	}
+
+	@Test public void touch() throws IOException {
+		Report report = new Report("touch");
+		SwipeStack swipeStack = SwipeStackFixtures.createSwipeStack(SwipeStack.DEFAULT_STACK_SIZE);
+		final View topView = swipeStack.getTopView();
+		long downTime = SystemClock.uptimeMillis();
+		final MotionEvent[] moves = new MotionEvent[MOVE_EVENT_COUNT];
+		for (int x = 0; x < moves.length; x++) {
+			// Drag back and forth without reaching the swipe threshold.
+			float offset = (x < moves.length / 2 ? x : moves.length - x) * 10;
+			moves[x] = MotionEvent.obtain(downTime, downTime + x * 8, MotionEvent.ACTION_MOVE, offset, 0, 0);
+		}
+
+		topView.dispatchTouchEvent(MotionEvent.obtain(downTime, downTime, MotionEvent.ACTION_DOWN, 0, 0, 0));
+		report.measure("move", ITERATIONS, new Operation() {
+			@Override public void run(int iteration) {
+				topView.dispatchTouchEvent(moves[iteration % moves.length]);
+			}
+		});
+		topView.dispatchTouchEvent(MotionEvent.obtain(downTime, SystemClock.uptimeMillis(), MotionEvent.ACTION_UP, 0, 0, 0));
+		report.write();
+	}
+
+	@Test public void swipe() throws IOException {
+		Report report = new Report("swipe");
+		final SwipeStack swipeStack = SwipeStackFixtures.createSwipeStack(SwipeStack.DEFAULT_STACK_SIZE);
+		report.measure("swipe", SWIPE_ITERATIONS, new Operation() {
+			@Override public void run(int iteration) {
+				int position = swipeStack.getCurrentPosition();
+				View topView = swipeStack.getTopView();
+				long downTime = SystemClock.uptimeMillis();
+				topView.dispatchTouchEvent(MotionEvent.obtain(downTime, downTime, MotionEvent.ACTION_DOWN, 0, 0, 0));
+				for (int x = 1; x <= MOVE_EVENT_COUNT; x++) {
+					topView.dispatchTouchEvent(MotionEvent.obtain(downTime, downTime + x * 8, MotionEvent.ACTION_MOVE, -x * 40, 0, 0));
+				}
+				topView.dispatchTouchEvent(MotionEvent.obtain(downTime, downTime + MOVE_EVENT_COUNT * 8, MotionEvent.ACTION_UP,
+						-MOVE_EVENT_COUNT * 40, 0, 0));
+				while (swipeStack.getCurrentPosition() == position) {
+					ShadowLooper.runUiThreadTasksIncludingDelayedTasks();
+				}
+				SwipeStackFixtures.layout(swipeStack);
+			}
+		});
+		report.write();
+	}
+
+	private interface Operation {
+		void run(int iteration);
+	}
+
+	private static class Report {
+		private final String mBenchmark;
+		private final StringBuilder mResults = new StringBuilder();
+
+		Report(String benchmark) {
+			mBenchmark = benchmark;
+		}
+
+		void measure(String name, int iterations, Operation operation) {
+			for (int x = 0; x < Math.min(iterations, WARMUP_ITERATIONS); x++) {
+				operation.run(x);
+			}
+
+			long startBytes = AllocationCounter.getAllocatedBytes();
+			long startNanos = System.nanoTime();
+			for (int x = 0; x < iterations; x++) {
+				operation.run(x);
+			}
+			long nanos = System.nanoTime() - startNanos;
+			long bytes = AllocationCounter.getAllocatedBytes() - startBytes;
+
+			if (mResults.length() > 0) mResults.append(",\n");
+			mResults.append(String.format(Locale.US, "    {\"name\": \"%s\", \"iterations\": %d, \"nanos_per_op\": %.1f, \"bytes_per_op\": %.1f}",
+					name, iterations, (double) nanos / iterations, (double) bytes / iterations));
+		}
+
+		void write() throws IOException {
+			String json = "{\n  \"benchmark\": \"" + mBenchmark + "\",\n  \"results\": [\n" + mResults + "\n  ]\n}\n";
+			if (!RESULTS_DIRECTORY.isDirectory() && !RESULTS_DIRECTORY.mkdirs()) {
+				throw new IOException("Can't create " + RESULTS_DIRECTORY);
+			}
+			Writer writer = new FileWriter(new File(RESULTS_DIRECTORY, mBenchmark + ".json"));
+			try {
+				writer.write(json);
+			} finally {
+				writer.close();
+			}
+		}
+	}
+}
@@ -0,0 +1,65 @@
+/*
+ * Copyright (C) 2016 Frederik Schweiger
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package be.trikke.swipestack;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowLooper;
+
+import static org.junit.Assert.assertEquals;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 23)
+public class SwipeStackDepthTest {
+
+	@Test public void everyPlaceKeepsItsDepthAcrossSwipes() {
+		SwipeStack swipeStack = SwipeStackFixtures.createSwipeStack(SwipeStack.DEFAULT_STACK_SIZE);
+		assertDepths(swipeStack);
+
+		for (int position = 1; position <= 5; position++) {
+			swipeStack.swipeTopViewToLeft();
+			while (swipeStack.getCurrentPosition() < position) {
+				ShadowLooper.runUiThreadTasksIncludingDelayedTasks();
+			}
+			SwipeStackFixtures.layout(swipeStack);
+			assertDepths(swipeStack);
+		}
+	}
+
+	@Test public void undoKeepsTheDepthOfTheTopCard() {
+		SwipeStack swipeStack = SwipeStackFixtures.createSwipeStack(SwipeStack.DEFAULT_STACK_SIZE);
+		swipeStack.setUndoDepth(1);
+		swipeStack.swipeTopViewToLeft();
+		while (swipeStack.getCurrentPosition() == 0) {
+			ShadowLooper.runUiThreadTasksIncludingDelayedTasks();
+		}
+		SwipeStackFixtures.layout(swipeStack);
+
+		swipeStack.undoLastSwipe();
+		assertDepths(swipeStack);
+	}
+
+	private static void assertDepths(SwipeStack swipeStack) {
+		int topViewIndex = swipeStack.getChildCount() - 1;
+		for (int x = 0; x <= topViewIndex; x++) {
+			float expectedZ = SwipeStack.DEFAULT_STACK_SIZE - 1 - (topViewIndex - x);
+			assertEquals(expectedZ, swipeStack.getChildAt(x).getTranslationZ(), 0);
+		}
+	}
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright (C) 2016 Frederik Schweiger
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package be.trikke.swipestack;
+
+import android.util.AttributeSet;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.BaseAdapter;
+import org.robolectric.Robolectric;
+import org.robolectric.RuntimeEnvironment;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Creates laid out SwipeStacks of {@link StubCardView}s for the tests and benchmarks.
+ */
+final class SwipeStackFixtures {
+
+	static final int WIDTH = 1080;
+	static final int HEIGHT = 1920;
+
+	private SwipeStackFixtures() {
+	}
+
+	static AttributeSet createAttributes(int stackSize) {
+		return Robolectric.buildAttributeSet()
+				.addAttribute(be.trikke.swipestack.R.attr.stack_size, String.valueOf(stackSize))
+				.addAttribute(be.trikke.swipestack.R.attr.animation_duration, "1")
+				.build();
+	}
+
+	static SwipeStack createSwipeStack(int stackSize) {
+		SwipeStack swipeStack = new SwipeStack(RuntimeEnvironment.application, createAttributes(stackSize));
+		swipeStack.setAdapter(new CardAdapter());
+		layout(swipeStack);
+		assertEquals(stackSize, swipeStack.getChildCount());
+		return swipeStack;
+	}
+
+	static void layout(SwipeStack swipeStack) {
+		swipeStack.measure(View.MeasureSpec.makeMeasureSpec(WIDTH, View.MeasureSpec.EXACTLY),
+				View.MeasureSpec.makeMeasureSpec(HEIGHT, View.MeasureSpec.EXACTLY));
+		swipeStack.layout(0, 0, WIDTH, HEIGHT);
+	}
+
+	static class CardAdapter extends BaseAdapter {
+		@Override public int getCount() {
+			return Integer.MAX_VALUE;
+		}
+
+		@Override public Object getItem(int position) {
+			return null;
+		}
+
+		@Override public long getItemId(int position) {
+			return position;
+		}
+
+		@Override public View getView(int position, View convertView, ViewGroup parent) {
+			return convertView != null ? convertView : new StubCardView(parent.getContext());
+		}
+	}
+}
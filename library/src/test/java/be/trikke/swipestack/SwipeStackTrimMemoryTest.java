@@ -0,0 +1,62 @@
+/*
+ * Copyright (C) 2016 Frederik Schweiger
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package be.trikke.swipestack;
+
+import android.content.ComponentCallbacks2;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowLooper;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 23)
+public class SwipeStackTrimMemoryTest {
+
+	@Test public void hidingTheUiKeepsTheUndoBuffer() {
+		SwipeStack swipeStack = createSwipedStack();
+
+		swipeStack.trimMemory(ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN);
+		assertTrue(swipeStack.canUndo());
+		swipeStack.trimMemory(ComponentCallbacks2.TRIM_MEMORY_BACKGROUND);
+		assertTrue(swipeStack.canUndo());
+	}
+
+	@Test public void criticalLevelsDropTheUndoBuffer() {
+		SwipeStack swipeStack = createSwipedStack();
+		swipeStack.trimMemory(ComponentCallbacks2.TRIM_MEMORY_RUNNING_CRITICAL);
+		assertFalse(swipeStack.canUndo());
+
+		swipeStack = createSwipedStack();
+		swipeStack.trimMemory(ComponentCallbacks2.TRIM_MEMORY_MODERATE);
+		assertFalse(swipeStack.canUndo());
+	}
+
+	private static SwipeStack createSwipedStack() {
+		SwipeStack swipeStack = SwipeStackFixtures.createSwipeStack(SwipeStack.DEFAULT_STACK_SIZE);
+		swipeStack.setUndoDepth(1);
+		swipeStack.swipeTopViewToLeft();
+		while (swipeStack.getCurrentPosition() == 0) {
+			ShadowLooper.runUiThreadTasksIncludingDelayedTasks();
+		}
+		assertTrue(swipeStack.canUndo());
+		return swipeStack;
+	}
+}